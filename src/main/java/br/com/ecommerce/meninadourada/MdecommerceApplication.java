@@ -3,8 +3,10 @@ package br.com.ecommerce.meninadourada;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Jobs em segundo plano (ex.: despacho do outbox de pedidos)
 public class MdecommerceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,99 @@
+package br.com.ecommerce.meninadourada.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Protege os endpoints administrativos (campanhas, importação, listagem, exportação e remoção de
+ * inscrições da newsletter) com um segredo compartilhado,
+ * enviado no cabeçalho X-Admin-Token. Requisições sem o token correto recebem 401 sem chegar
+ * ao controller. O caminho comparado é o lookup path do Spring MVC (decodificado, normalizado e
+ * sem parâmetros ";"), o mesmo usado no mapeamento dos controllers.
+ */
+@Component
+public class AdminAuthFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminAuthFilter.class);
+
+    public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    // Rotas protegidas: método (null = todos) e prefixo (o próprio caminho e tudo abaixo dele).
+    // Ficam públicos só o cadastro (POST /subscribe) e o descadastro por token (POST /unsubscribe).
+    private static final List<ProtectedRoute> PROTECTED_ROUTES = List.of(
+            new ProtectedRoute(null, "/api/newsletter/campaigns"),
+            new ProtectedRoute("POST", "/api/newsletter/import"),
+            new ProtectedRoute("GET", "/api/newsletter"),
+            new ProtectedRoute("DELETE", "/api/newsletter"));
+
+    private final byte[] adminToken;
+
+    @Autowired
+    public AdminAuthFilter(@Value("${admin.api-token}") String adminToken) {
+        if (adminToken == null || adminToken.length() < 32) {
+            throw new IllegalStateException("admin.api-token deve ter ao menos 32 caracteres");
+        }
+        this.adminToken = adminToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Preflight CORS (OPTIONS) não leva o cabeçalho
+        return HttpMethod.OPTIONS.matches(request.getMethod())
+                || !isProtected(request.getMethod(), UrlPathHelper.defaultInstance.getLookupPathForRequest(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = request.getHeader(ADMIN_TOKEN_HEADER);
+        if (token == null || !MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8))) {
+            logger.warn("Acesso administrativo negado a {} {} (cliente {}).", request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            // O CORS do Spring MVC não é aplicado aqui: sem este cabeçalho o navegador esconderia o 401 do frontend
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"error\":\"Acesso não autorizado.\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isProtected(String method, String path) {
+        for (ProtectedRoute route : PROTECTED_ROUTES) {
+            if ((route.method == null || route.method.equals(method))
+                    && (path.equals(route.pathPrefix) || path.startsWith(route.pathPrefix + "/"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class ProtectedRoute {
+        private final String method;
+        private final String pathPrefix;
+
+        private ProtectedRoute(String method, String pathPrefix) {
+            this.method = method;
+            this.pathPrefix = pathPrefix;
+        }
+    }
+}
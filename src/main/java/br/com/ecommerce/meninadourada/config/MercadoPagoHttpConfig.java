@@ -0,0 +1,120 @@
+package br.com.ecommerce.meninadourada.config;
+
+import br.com.ecommerce.meninadourada.simulator.SimulatorRoutingHttpClient;
+import com.mercadopago.net.MPDefaultHttpClient;
+import com.mercadopago.net.MPHttpClient;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuração do transporte HTTP usado pelos clients do SDK do Mercado Pago.
+ * Um único pool de conexões keep-alive é compartilhado por todos os clients, então as
+ * conexões (e os handshakes TLS) são reaproveitadas entre as chamadas.
+ * Com o profile "mp-simulator", as chamadas são redirecionadas ao simulador embutido.
+ */
+@Configuration
+public class MercadoPagoHttpConfig {
+
+    @Value("${mercadopago.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${mercadopago.http.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${mercadopago.http.keep-alive-seconds:60}")
+    private long keepAliveSeconds;
+
+    @Value("${mercadopago.http.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value("${mercadopago.http.validate-after-inactivity-ms:2000}")
+    private int validateAfterInactivityMs;
+
+    /**
+     * Define o cliente Apache HTTP com pool de conexões keep-alive.
+     * As novas tentativas ficam a cargo do MercadoPagoResilience, então o retry automático
+     * do Apache HTTP fica desligado.
+     * @return O cliente HTTP compartilhado (fechado no shutdown da aplicação).
+     */
+    @Bean
+    public CloseableHttpClient mercadoPagoTransport() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictionSeconds, TimeUnit.SECONDS)
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Cliente HTTP do SDK sobre o transporte compartilhado, apontando para a API real do Mercado Pago.
+     * @param mercadoPagoTransport O cliente Apache HTTP com pool.
+     * @return Uma instância de MPHttpClient.
+     */
+    @Bean
+    @Profile("!mp-simulator")
+    public MPHttpClient mercadoPagoHttpClient(CloseableHttpClient mercadoPagoTransport) {
+        return new PooledMercadoPagoHttpClient(mercadoPagoTransport);
+    }
+
+    /**
+     * Cliente HTTP que reescreve as URLs da API do Mercado Pago para o simulador embutido.
+     * @param mercadoPagoTransport O cliente Apache HTTP com pool.
+     * @param simulatorBaseUrl A URL base do simulador (ex.: http://localhost:9090/mp-simulator).
+     * @return Uma instância de MPHttpClient.
+     */
+    @Bean
+    @Profile("mp-simulator")
+    public MPHttpClient simulatorMercadoPagoHttpClient(CloseableHttpClient mercadoPagoTransport,
+                                                       @Value("${mp-simulator.base-url}") String simulatorBaseUrl) {
+        return new SimulatorRoutingHttpClient(new PooledMercadoPagoHttpClient(mercadoPagoTransport), simulatorBaseUrl);
+    }
+
+    /**
+     * Mantém a conexão pelo tempo indicado no header Keep-Alive da resposta, limitado ao configurado.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        long maxKeepAliveMs = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(maxKeepAliveMs, TimeUnit.SECONDS.toMillis(Long.parseLong(element.getValue())));
+                    } catch (NumberFormatException ignored) {
+                        // Valor inválido: usa o limite configurado
+                    }
+                }
+            }
+            return maxKeepAliveMs;
+        };
+    }
+
+    /**
+     * MPDefaultHttpClient sobre um cliente Apache HTTP fornecido (o construtor é protegido no SDK).
+     */
+    private static final class PooledMercadoPagoHttpClient extends MPDefaultHttpClient {
+        private PooledMercadoPagoHttpClient(CloseableHttpClient httpClient) {
+            super(httpClient);
+        }
+    }
+}
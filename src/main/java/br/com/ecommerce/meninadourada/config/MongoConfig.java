@@ -0,0 +1,21 @@
+package br.com.ecommerce.meninadourada.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Configuração do MongoDB.
+ * Registra o MongoTransactionManager para que os métodos anotados com @Transactional
+ * sejam de fato executados em uma transação (necessário para gravar o pedido e o
+ * evento do outbox de forma atômica).
+ */
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+}
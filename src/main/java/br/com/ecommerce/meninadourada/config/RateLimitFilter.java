@@ -0,0 +1,153 @@
+package br.com.ecommerce.meninadourada.config;
+
+import br.com.ecommerce.meninadourada.service.StripedRateLimiter;
+import br.com.ecommerce.meninadourada.service.TokenBucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de taxa dos endpoints públicos de escrita (cadastro na newsletter, criação de
+ * preferência no Mercado Pago, geração de descrição pelo Gemini e pedido do link de acesso
+ * aos pedidos por e-mail).
+ * Cada rota tem um token bucket por IP do cliente (StripedRateLimiter) e um bucket global,
+ * que protege o Mongo e as cotas externas mesmo com muitos IPs diferentes. Requisições acima
+ * do limite recebem 429 com Retry-After, sem chegar ao controller.
+ * O IP é o request.getRemoteAddr(): atrás de um proxy, ele depende de
+ * server.forward-headers-strategy para refletir o X-Forwarded-For.
+ * A rota é identificada pelo lookup path do Spring MVC (decodificado, normalizado e sem
+ * parâmetros ";"), o mesmo usado no mapeamento dos controllers, e não pela URI bruta.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final Map<String, String> ROUTES = Map.of(
+            "/api/newsletter/subscribe", "newsletter-subscribe",
+            "/api/payments/create-preference", "create-preference",
+            "/api/ai/generate-description", "ai-description",
+            "/api/orders/history-link", "order-history-link");
+
+    private final Environment environment;
+    private final Map<String, RouteLimit> limits = new HashMap<>();
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.stripes:64}")
+    private int stripes;
+
+    @Value("${rate-limit.max-clients:100000}")
+    private int maxClients;
+
+    @Autowired
+    public RateLimitFilter(Environment environment) {
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    void createLimits() {
+        // As propriedades de cada rota seguem o prefixo rate-limit.<nome da rota>
+        ROUTES.forEach((path, name) -> {
+            String prefix = "rate-limit." + name + ".";
+            double clientRatePerMinute = environment.getRequiredProperty(prefix + "client-rate-per-minute", Double.class);
+            int clientBurst = environment.getRequiredProperty(prefix + "client-burst", Integer.class);
+            double routeRatePerSecond = environment.getRequiredProperty(prefix + "route-rate-per-second", Double.class);
+            int routeBurst = environment.getRequiredProperty(prefix + "route-burst", Integer.class);
+            limits.put(path, new RouteLimit(name,
+                    new StripedRateLimiter(clientRatePerMinute / 60, clientBurst, stripes, maxClients / ROUTES.size()),
+                    new TokenBucket(routeRatePerSecond, routeBurst)));
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Preflight CORS (OPTIONS) e leituras não são limitados
+        return !enabled || !"POST".equals(request.getMethod()) || !limits.containsKey(lookupPath(request));
+    }
+
+    private static String lookupPath(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getLookupPathForRequest(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteLimit limit = limits.get(lookupPath(request));
+        String clientIp = request.getRemoteAddr();
+
+        long waitNanos = limit.clients.tryAcquire(clientIp);
+        if (waitNanos > 0) {
+            logger.debug("Limite por cliente excedido em {} por {}.", limit.name, clientIp);
+            reject(response, waitNanos);
+            return;
+        }
+        if (!limit.route.tryAcquire()) {
+            // A requisição não passou: o token do cliente é devolvido, para o limite global não consumir a cota dele
+            limit.clients.release(clientIp);
+            logger.warn("Limite global excedido em {} (cliente {}).", limit.name, clientIp);
+            reject(response, limit.route.nanosUntilAvailable());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        // O CORS do Spring MVC não é aplicado aqui: sem este cabeçalho o navegador esconderia o 429 do frontend
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"error\":\"Muitas requisições. Tente novamente em " + retryAfterSeconds + " segundo(s).\"}");
+    }
+
+    /**
+     * Remove os buckets de clientes ociosos (já reabastecidos por completo).
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleClients() {
+        limits.values().forEach(limit -> {
+            int evicted = limit.clients.evictIdle();
+            if (evicted > 0) {
+                logger.debug("{} cliente(s) ocioso(s) removido(s) do limite de {}; {} restante(s).",
+                        evicted, limit.name, limit.clients.size());
+            }
+        });
+    }
+
+    private static final class RouteLimit {
+        private final String name;
+        private final StripedRateLimiter clients;
+        private final TokenBucket route;
+
+        private RouteLimit(String name, StripedRateLimiter clients, TokenBucket route) {
+            this.name = name;
+            this.clients = clients;
+            this.route = route;
+        }
+    }
+}
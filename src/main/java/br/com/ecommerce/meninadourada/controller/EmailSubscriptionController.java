@@ -1,18 +1,24 @@
 package br.com.ecommerce.meninadourada.controller;
 
 import br.com.ecommerce.meninadourada.dto.EmailSubscriptionRequestDTO;
+import br.com.ecommerce.meninadourada.dto.SubscriberImportResultDTO;
+import br.com.ecommerce.meninadourada.dto.SubscriptionPageDTO;
 import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
 import br.com.ecommerce.meninadourada.model.EmailSubscription;
 import br.com.ecommerce.meninadourada.service.EmailSubscriptionService;
+import br.com.ecommerce.meninadourada.service.NewsletterImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.io.IOException;
 import java.util.Map; // Para o Map.of no erro
 @RestController
 @RequestMapping("/api/newsletter") // Caminho base para os endpoints da newsletter
@@ -21,10 +27,13 @@ public class EmailSubscriptionController {
     private static final Logger logger = LoggerFactory.getLogger(EmailSubscriptionController.class);
 
     private final EmailSubscriptionService emailSubscriptionService;
+    private final NewsletterImportService newsletterImportService;
 
     @Autowired
-    public EmailSubscriptionController(EmailSubscriptionService emailSubscriptionService) {
+    public EmailSubscriptionController(EmailSubscriptionService emailSubscriptionService,
+                                       NewsletterImportService newsletterImportService) {
         this.emailSubscriptionService = emailSubscriptionService;
+        this.newsletterImportService = newsletterImportService;
     }
 
     /**
@@ -41,6 +50,27 @@ public class EmailSubscriptionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(newSubscription);
     }
 
+    /**
+     * Endpoint HTTP POST para importar inscritos em massa.
+     * O corpo é lido em streaming: CSV (text/csv) ou NDJSON (application/x-ndjson),
+     * sem limite de tamanho e sem carregar o arquivo em memória.
+     * Administrativo: exige o cabeçalho X-Admin-Token (AdminAuthFilter).
+     *
+     * @param request A requisição, cujo corpo é o arquivo.
+     * @return ResponseEntity com as contagens de inseridos, duplicados e inválidos e status HTTP 200 (OK).
+     * @throws IOException Se a leitura do corpo falhar.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain", "application/x-ndjson"})
+    public ResponseEntity<SubscriberImportResultDTO> importSubscribers(HttpServletRequest request) throws IOException {
+        NewsletterImportService.Format format = request.getContentType().contains("ndjson")
+                ? NewsletterImportService.Format.NDJSON
+                : NewsletterImportService.Format.CSV;
+        logger.info("Recebida requisição de importação de inscritos ({}).", format);
+        SubscriberImportResultDTO result = newsletterImportService.importSubscribers(request.getInputStream(), format);
+        logger.info("Importação de inscritos finalizada: {}", result);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Endpoint HTTP GET para buscar uma inscrição de e-mail por ID.
      * @param id O ID da inscrição.
@@ -55,15 +85,37 @@ public class EmailSubscriptionController {
     }
 
     /**
-     * Endpoint HTTP GET para listar todas as inscrições de e-mail.
-     * @return ResponseEntity com uma lista de inscrições e status HTTP 200 (OK).
+     * Endpoint HTTP GET para listar as inscrições de e-mail, das mais recentes para as mais antigas,
+     * com paginação por cursor.
+     *
+     * @param cursor O nextCursor retornado pela página anterior (opcional).
+     * @param size O número de inscrições por página (padrão 50, máximo 200).
+     * @return ResponseEntity com a página de inscrições e status HTTP 200 (OK).
      */
     @GetMapping("/all")
-    public ResponseEntity<List<EmailSubscription>> getAllSubscriptions() {
-        logger.info("Recebida requisição para listar todas as inscrições de e-mail.");
-        List<EmailSubscription> subscriptions = emailSubscriptionService.getAllSubscriptions();
-        logger.info("Retornando {} inscrições de e-mail.", subscriptions.size());
-        return ResponseEntity.ok(subscriptions);
+    public ResponseEntity<SubscriptionPageDTO> getSubscriptionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        logger.info("Recebida requisição para listar inscrições de e-mail (cursor: {}).", cursor);
+        SubscriptionPageDTO page = emailSubscriptionService.getSubscriptionsPage(cursor, size);
+        logger.info("Retornando {} inscrições de e-mail. Próximo cursor: {}", page.getSubscriptions().size(), page.getNextCursor());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Endpoint HTTP GET para exportar todas as inscrições em CSV.
+     * O arquivo é escrito em streaming direto do cursor do Mongo, sem montar a lista em memória.
+     *
+     * @param response A resposta HTTP em que o CSV é escrito.
+     * @throws IOException Se a escrita falhar (ex.: o cliente desconectou).
+     */
+    @GetMapping("/export")
+    public void exportSubscriptions(HttpServletResponse response) throws IOException {
+        logger.info("Recebida requisição para exportar as inscrições de e-mail.");
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"newsletter-subscriptions.csv\"");
+        long count = emailSubscriptionService.exportSubscriptionsCsv(response.getOutputStream());
+        logger.info("Exportação concluída: {} inscrições de e-mail.", count);
     }
 
     /**
@@ -79,6 +131,22 @@ public class EmailSubscriptionController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Endpoint HTTP POST para cancelar a inscrição pelo token assinado do link de descadastro.
+     * Atende a página de descadastro e o descadastro em um clique dos clientes de e-mail
+     * (List-Unsubscribe-Post, RFC 8058). Não há GET: leitores de links que abrem URLs
+     * automaticamente não cancelam inscrições.
+     *
+     * @param token O token do link de descadastro.
+     * @return ResponseEntity com status HTTP 204 (No Content), também se a inscrição já tinha sido removida.
+     */
+    @PostMapping("/unsubscribe")
+    public ResponseEntity<Void> unsubscribeByToken(@RequestParam String token) {
+        logger.info("Recebida requisição de descadastro por link.");
+        emailSubscriptionService.unsubscribeByToken(token);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Handler de exceção para IllegalArgumentException (usado para e-mail duplicado).
      * Retorna status HTTP 400 (Bad Request).
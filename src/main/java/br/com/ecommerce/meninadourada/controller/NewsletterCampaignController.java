@@ -0,0 +1,82 @@
+package br.com.ecommerce.meninadourada.controller;
+
+import br.com.ecommerce.meninadourada.dto.CampaignRequestDTO;
+import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
+import br.com.ecommerce.meninadourada.model.Campaign;
+import br.com.ecommerce.meninadourada.service.NewsletterCampaignService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/newsletter/campaigns") // Campanhas de e-mail para os inscritos da newsletter
+public class NewsletterCampaignController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NewsletterCampaignController.class);
+
+    private final NewsletterCampaignService campaignService;
+
+    @Autowired
+    public NewsletterCampaignController(NewsletterCampaignService campaignService) {
+        this.campaignService = campaignService;
+    }
+
+    /**
+     * Endpoint HTTP POST para criar uma campanha. O envio começa em segundo plano.
+     *
+     * @param dto O nome, o template e as variáveis da campanha.
+     * @return ResponseEntity com a campanha criada e status HTTP 202 (Accepted).
+     */
+    @PostMapping
+    public ResponseEntity<Campaign> createCampaign(@Valid @RequestBody CampaignRequestDTO dto) {
+        logger.info("Recebida requisição para criar a campanha {} (template {}).", dto.getName(), dto.getTemplateName());
+        Map<String, String> variables = dto.getVariables() != null ? dto.getVariables() : new HashMap<>();
+        Campaign campaign = campaignService.createCampaign(dto.getName(), dto.getTemplateName(), variables);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(campaign);
+    }
+
+    /**
+     * Endpoint HTTP GET para acompanhar uma campanha (status, contadores e checkpoint).
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Campaign> getCampaign(@PathVariable String id) {
+        return ResponseEntity.ok(campaignService.getCampaign(id));
+    }
+
+    /**
+     * Endpoint HTTP POST para pausar o envio de uma campanha.
+     */
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<Campaign> pauseCampaign(@PathVariable String id) {
+        logger.info("Recebida requisição para pausar a campanha {}.", id);
+        return ResponseEntity.ok(campaignService.pauseCampaign(id));
+    }
+
+    /**
+     * Endpoint HTTP POST para retomar uma campanha pausada a partir do checkpoint.
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<Campaign> resumeCampaign(@PathVariable String id) {
+        logger.info("Recebida requisição para retomar a campanha {}.", id);
+        return ResponseEntity.ok(campaignService.resumeCampaign(id));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        logger.warn("Erro de requisição inválida: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleResourceNotFoundException(ResourceNotFoundException ex) {
+        logger.warn("Recurso não encontrado: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.ecommerce.meninadourada.controller;
+
+import br.com.ecommerce.meninadourada.dto.OrderHistoryLinkRequestDTO;
+import br.com.ecommerce.meninadourada.dto.OrderHistoryPageDTO;
+import br.com.ecommerce.meninadourada.service.EmailService;
+import br.com.ecommerce.meninadourada.service.OrderAccessTokenService;
+import br.com.ecommerce.meninadourada.service.OrderService;
+import br.com.ecommerce.meninadourada.service.OrderStatusStreamService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders")
+public class OrderController {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+
+    private final OrderService orderService;
+    private final OrderStatusStreamService orderStatusStreamService;
+    private final OrderAccessTokenService orderAccessTokenService;
+    private final EmailService emailService;
+
+    @Value("${orders.history.page-url}")
+    private String historyPageUrl;
+
+    @Value("${orders.access-token.history-ttl-seconds:86400}")
+    private long historyTtlSeconds;
+
+    @Autowired
+    public OrderController(OrderService orderService, OrderStatusStreamService orderStatusStreamService,
+                           OrderAccessTokenService orderAccessTokenService, EmailService emailService) {
+        this.orderService = orderService;
+        this.orderStatusStreamService = orderStatusStreamService;
+        this.orderAccessTokenService = orderAccessTokenService;
+        this.emailService = emailService;
+    }
+
+    /**
+     * Endpoint HTTP POST para pedir o link de acesso ao histórico de pedidos ("Meus pedidos").
+     * O link assinado vai por e-mail, então só quem controla o endereço consegue ver os pedidos.
+     * A resposta é sempre 202, exista ou não pedido com o e-mail, para não revelar quem comprou na loja.
+     *
+     * @param dto O e-mail do cliente.
+     * @return ResponseEntity vazio com status HTTP 202 (Accepted).
+     */
+    @PostMapping("/history-link")
+    public ResponseEntity<Void> requestHistoryLink(@Valid @RequestBody OrderHistoryLinkRequestDTO dto) {
+        String customerEmail = dto.getEmail().trim();
+        if (orderService.hasOrdersForCustomer(customerEmail)) {
+            String token = orderAccessTokenService.createHistoryToken(customerEmail);
+            String historyUrl = historyPageUrl + "?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8);
+            emailService.sendOrderHistoryLink(customerEmail, historyUrl, Math.max(1, historyTtlSeconds / 3600));
+        } else {
+            logger.info("Link de acesso aos pedidos solicitado para e-mail sem pedidos; nenhum e-mail enviado.");
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Endpoint HTTP GET para listar os pedidos de um cliente ("Meus pedidos"), do mais recente
+     * para o mais antigo, com paginação por cursor.
+     *
+     * @param token O token do link de acesso enviado por e-mail (POST /history-link).
+     * @param cursor O nextCursor retornado pela página anterior (opcional).
+     * @param size O número de pedidos por página (padrão 10, máximo 50).
+     * @return ResponseEntity com a página de resumos de pedidos e status HTTP 200 (OK).
+     */
+    @GetMapping("/by-customer")
+    public ResponseEntity<OrderHistoryPageDTO> getOrdersByCustomer(
+            @RequestParam String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        String customerEmail = orderAccessTokenService.verifyHistoryToken(token);
+        logger.info("Recebida requisição para listar pedidos do cliente (email: {}).", customerEmail);
+        OrderHistoryPageDTO page = orderService.getOrdersByCustomer(customerEmail, cursor, size);
+        logger.info("Retornando {} pedidos. Próximo cursor: {}", page.getOrders().size(), page.getNextCursor());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Endpoint HTTP GET (Server-Sent Events) para acompanhar o status de um pedido, usado pela
+     * página de retorno do checkout no lugar de consultas periódicas.
+     * Envia o status atual ao conectar e um evento "order-status" a cada mudança; o stream
+     * é encerrado quando o pedido chega a PAID ou a um estado final.
+     *
+     * @param token O token de acompanhamento devolvido na criação da preferência (orderAccessToken).
+     * @return O SseEmitter da conexão (404 se o pedido não existir, 503 se o nó estiver no limite de conexões).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatus(
+            @RequestParam String token) {
+        String orderId = orderAccessTokenService.verifyOrderToken(token);
+        logger.info("Abrindo stream de status (orderId: {}).", orderId);
+        return orderStatusStreamService.subscribe(orderId);
+    }
+
+    /**
+     * Handler de exceção para IllegalArgumentException (token inválido ou expirado, ou cursor inválido).
+     * Retorna status HTTP 400 (Bad Request).
+     * @param ex A exceção IllegalArgumentException.
+     * @return ResponseEntity com a mensagem de erro e status HTTP 400.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        logger.warn("Erro de requisição inválida: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", ex.getMessage()));
+    }
+}
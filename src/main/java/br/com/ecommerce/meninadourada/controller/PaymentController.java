@@ -4,12 +4,17 @@ package br.com.ecommerce.meninadourada.controller;
 import br.com.ecommerce.meninadourada.dto.PaymentRequestDTO;
 import br.com.ecommerce.meninadourada.dto.PaymentStatusUpdateRequestDTO;
 import br.com.ecommerce.meninadourada.dto.PreferenceResponseDTO;
+import br.com.ecommerce.meninadourada.exception.IdempotencyConflictException;
+import br.com.ecommerce.meninadourada.exception.PaymentProviderUnavailableException;
+import br.com.ecommerce.meninadourada.service.IdempotencyService;
 import br.com.ecommerce.meninadourada.service.MercadoPagoService;
 import br.com.ecommerce.meninadourada.service.OrderService;
+import br.com.ecommerce.meninadourada.service.WebhookInboxService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,26 +27,46 @@ public class PaymentController {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentController.class);
     private final MercadoPagoService mercadoPagoService;
+    private final IdempotencyService idempotencyService;
+    private final WebhookInboxService webhookInboxService;
     private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
 
     @Autowired
     private OrderService orderService;
 
 
-    public PaymentController(MercadoPagoService mercadoPagoService) {
+    public PaymentController(MercadoPagoService mercadoPagoService, IdempotencyService idempotencyService,
+                             WebhookInboxService webhookInboxService) {
         this.mercadoPagoService = mercadoPagoService;
+        this.idempotencyService = idempotencyService;
+        this.webhookInboxService = webhookInboxService;
     }
 
     /**
      * POST /create-preference
+     * Com o header Idempotency-Key, repetições da mesma requisição (ex.: retry por timeout no app)
+     * recebem a preferência já criada, sem criar outra preferência nem outro pedido.
      */
     @PostMapping("/create-preference")
-    public ResponseEntity<?> createPreference(@Valid @RequestBody PaymentRequestDTO dto) {
-        logger.info("Received create-preference for user: {}", dto.getUserId());
+    public ResponseEntity<?> createPreference(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody PaymentRequestDTO dto) {
+        logger.info("Received create-preference for user: {} (Idempotency-Key: {})", dto.getUserId(), idempotencyKey);
 
         try {
-            PreferenceResponseDTO resp = mercadoPagoService.createPaymentPreference(dto);
+            PreferenceResponseDTO resp = isBlank(idempotencyKey)
+                    ? mercadoPagoService.createPaymentPreference(dto)
+                    : idempotencyService.execute("create-preference", idempotencyKey.trim(), dto,
+                            PreferenceResponseDTO.class, () -> mercadoPagoService.createPaymentPreference(dto));
             return ResponseEntity.ok(resp);
+        } catch (IdempotencyConflictException e) {
+            logger.warn("Conflito de Idempotency-Key {}: {}", idempotencyKey, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (PaymentProviderUnavailableException e) {
+            logger.warn("Mercado Pago indisponível ao criar preferência: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", e.getMessage()));
         } catch (IllegalArgumentException e) {
             logger.warn("Erro de validação na requisição: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -96,11 +121,18 @@ public class PaymentController {
                     .body("Faltam parâmetros obrigatórios: id e/ou topic");
         }
 
-        // 8) Chama seu serviço
+        // 8) Pagamentos e merchant orders têm id numérico; um id inválido nunca será processado
+        if (("payment".equals(topic) || "merchant_order".equals(topic)) && !isNumeric(id)) {
+            logger.warn("🔴 Id inválido para o tópico {}: {}", topic, id);
+            return ResponseEntity
+                    .badRequest()
+                    .body("Id inválido para o tópico " + topic);
+        }
+
+        // 9) Grava na inbox e responde imediatamente; o processamento é assíncrono
         try {
-            logger.info("✅ Processando webhook com id={} topic={}", id, topic);
-            mercadoPagoService.handleWebhookNotification(id, topic);
-            return ResponseEntity.ok("Webhook processado");
+            webhookInboxService.receive(topic, id, payload);
+            return ResponseEntity.ok("Webhook recebido");
         } catch (Exception e) {
             logger.error("❌ Erro no processamento do webhook", e);
             return ResponseEntity
@@ -113,6 +145,15 @@ public class PaymentController {
         return s == null || s.trim().isEmpty();
     }
 
+    private boolean isNumeric(String s) {
+        try {
+            Long.parseLong(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     @PostMapping("/update")
     public ResponseEntity<String> updatePaymentStatus(@RequestBody PaymentStatusUpdateRequestDTO request) {
         log.info("🔄 Recebendo atualização de pagamento: {}", request);
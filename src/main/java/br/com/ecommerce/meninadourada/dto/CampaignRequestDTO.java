@@ -0,0 +1,79 @@
+package br.com.ecommerce.meninadourada.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public class CampaignRequestDTO {
+
+    @NotBlank(message = "O nome da campanha é obrigatório")
+    @Size(max = 200, message = "O nome da campanha não pode ter mais de 200 caracteres")
+    private String name;
+
+    @NotBlank(message = "O template é obrigatório")
+    private String templateName;
+
+    // Variáveis do template (ex.: title, body), iguais para todos os inscritos
+    private Map<String, String> variables = new HashMap<>();
+
+    // Construtor padrão
+    public CampaignRequestDTO() {
+    }
+
+    // Construtor com todos os argumentos
+    public CampaignRequestDTO(String name, String templateName, Map<String, String> variables) {
+        this.name = name;
+        this.templateName = templateName;
+        this.variables = variables;
+    }
+
+    // Getters e Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public void setTemplateName(String templateName) {
+        this.templateName = templateName;
+    }
+
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Map<String, String> variables) {
+        this.variables = variables;
+    }
+
+    @Override
+    public String toString() {
+        return "CampaignRequestDTO{" +
+                "name='" + name + '\'' +
+                ", templateName='" + templateName + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CampaignRequestDTO that = (CampaignRequestDTO) o;
+        return Objects.equals(name, that.name) && Objects.equals(templateName, that.templateName)
+                && Objects.equals(variables, that.variables);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, templateName, variables);
+    }
+}
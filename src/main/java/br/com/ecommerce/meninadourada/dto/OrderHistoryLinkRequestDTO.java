@@ -0,0 +1,55 @@
+package br.com.ecommerce.meninadourada.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.Objects;
+
+public class OrderHistoryLinkRequestDTO {
+
+    @NotBlank(message = "O e-mail é obrigatório")
+    @Email(message = "Formato de e-mail inválido")
+    @Size(max = 255, message = "O e-mail não pode ter mais de 255 caracteres")
+    private String email;
+
+    // Construtor padrão
+    public OrderHistoryLinkRequestDTO() {
+    }
+
+    // Construtor com todos os argumentos
+    public OrderHistoryLinkRequestDTO(String email) {
+        this.email = email;
+    }
+
+    // Getters e Setters
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    // Método toString
+    @Override
+    public String toString() {
+        return "OrderHistoryLinkRequestDTO{" +
+                "email='" + email + '\'' +
+                '}';
+    }
+
+    // Métodos equals e hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderHistoryLinkRequestDTO that = (OrderHistoryLinkRequestDTO) o;
+        return Objects.equals(email, that.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(email);
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.ecommerce.meninadourada.dto;
+
+import java.util.List;
+
+/**
+ * One page of a customer's order history.
+ * nextCursor is null when there are no more orders.
+ */
+public class OrderHistoryPageDTO {
+
+    private List<OrderSummaryDTO> orders;
+    private String nextCursor;
+
+    public OrderHistoryPageDTO() {
+    }
+
+    public OrderHistoryPageDTO(List<OrderSummaryDTO> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OrderSummaryDTO> getOrders() { return orders; }
+    public void setOrders(List<OrderSummaryDTO> orders) { this.orders = orders; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,51 @@
+package br.com.ecommerce.meninadourada.dto;
+
+import br.com.ecommerce.meninadourada.model.Order;
+import br.com.ecommerce.meninadourada.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Summary view of an order for the customer order history ("Meus pedidos").
+ * Intentionally leaves out items and shipping address.
+ */
+public class OrderSummaryDTO {
+
+    private String id;
+    private LocalDateTime orderDate;
+    private BigDecimal totalAmount;
+    private OrderStatus status;
+    private String paymentStatus;
+    private String externalReference;
+
+    public OrderSummaryDTO() {
+    }
+
+    public OrderSummaryDTO(String id, LocalDateTime orderDate, BigDecimal totalAmount, OrderStatus status, String paymentStatus, String externalReference) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.totalAmount = totalAmount;
+        this.status = status;
+        this.paymentStatus = paymentStatus;
+        this.externalReference = externalReference;
+    }
+
+    public static OrderSummaryDTO fromOrder(Order order) {
+        return new OrderSummaryDTO(order.getId(), order.getOrderDate(), order.getTotalAmount(), order.getStatus(),
+                order.getPaymentStatus(), order.getExternalReference());
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public void setOrderDate(LocalDateTime orderDate) { this.orderDate = orderDate; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+    public String getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; }
+    public String getExternalReference() { return externalReference; }
+    public void setExternalReference(String externalReference) { this.externalReference = externalReference; }
+}
@@ -4,13 +4,15 @@ public class PreferenceResponseDTO {
 
     private String preferenceId;
     private String initPoint;
+    private String orderAccessToken; // Token de acompanhamento do pedido (stream de status)
 
     public PreferenceResponseDTO() {
     }
 
-    public PreferenceResponseDTO(String preferenceId, String initPoint) {
+    public PreferenceResponseDTO(String preferenceId, String initPoint, String orderAccessToken) {
         this.preferenceId = preferenceId;
         this.initPoint = initPoint;
+        this.orderAccessToken = orderAccessToken;
     }
 
     public String getPreferenceId() {
@@ -28,4 +30,12 @@ public class PreferenceResponseDTO {
     public void setInitPoint(String initPoint) {
         this.initPoint = initPoint;
     }
+
+    public String getOrderAccessToken() {
+        return orderAccessToken;
+    }
+
+    public void setOrderAccessToken(String orderAccessToken) {
+        this.orderAccessToken = orderAccessToken;
+    }
 }
@@ -0,0 +1,43 @@
+package br.com.ecommerce.meninadourada.dto;
+
+/**
+ * Resultado de uma importação em massa de inscritos da newsletter.
+ * duplicates inclui os e-mails já cadastrados e os repetidos no próprio arquivo;
+ * failed conta os e-mails válidos que o banco recusou por outro motivo.
+ */
+public class SubscriberImportResultDTO {
+
+    private long inserted;
+    private long duplicates;
+    private long invalid;
+    private long failed;
+
+    public SubscriberImportResultDTO() {
+    }
+
+    public SubscriberImportResultDTO(long inserted, long duplicates, long invalid, long failed) {
+        this.inserted = inserted;
+        this.duplicates = duplicates;
+        this.invalid = invalid;
+        this.failed = failed;
+    }
+
+    public long getInserted() { return inserted; }
+    public void setInserted(long inserted) { this.inserted = inserted; }
+    public long getDuplicates() { return duplicates; }
+    public void setDuplicates(long duplicates) { this.duplicates = duplicates; }
+    public long getInvalid() { return invalid; }
+    public void setInvalid(long invalid) { this.invalid = invalid; }
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    @Override
+    public String toString() {
+        return "SubscriberImportResultDTO{" +
+                "inserted=" + inserted +
+                ", duplicates=" + duplicates +
+                ", invalid=" + invalid +
+                ", failed=" + failed +
+                '}';
+    }
+}
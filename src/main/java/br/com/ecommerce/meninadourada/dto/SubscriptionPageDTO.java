@@ -0,0 +1,28 @@
+package br.com.ecommerce.meninadourada.dto;
+
+import br.com.ecommerce.meninadourada.model.EmailSubscription;
+
+import java.util.List;
+
+/**
+ * Uma página da listagem de inscrições da newsletter.
+ * nextCursor é null quando não há mais inscrições.
+ */
+public class SubscriptionPageDTO {
+
+    private List<EmailSubscription> subscriptions;
+    private String nextCursor;
+
+    public SubscriptionPageDTO() {
+    }
+
+    public SubscriptionPageDTO(List<EmailSubscription> subscriptions, String nextCursor) {
+        this.subscriptions = subscriptions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EmailSubscription> getSubscriptions() { return subscriptions; }
+    public void setSubscriptions(List<EmailSubscription> subscriptions) { this.subscriptions = subscriptions; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,20 @@
+package br.com.ecommerce.meninadourada.exception;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção para indicar que uma chave de idempotência não pode ser atendida:
+ * foi reutilizada com outro payload ou a requisição original ainda não terminou.
+ * Mapeada para o status HTTP 409 (Conflict).
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyConflictException extends RuntimeException {
+
+    /**
+     * Construtor que aceita uma mensagem de erro.
+     * @param message A mensagem detalhando o conflito.
+     */
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.ecommerce.meninadourada.exception;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção para indicar que o provedor de pagamento (Mercado Pago) está indisponível:
+ * o circuit breaker está aberto ou o limite de chamadas simultâneas foi atingido.
+ * Mapeada para o status HTTP 503 (Service Unavailable).
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PaymentProviderUnavailableException extends RuntimeException {
+
+    /**
+     * Construtor que aceita uma mensagem de erro e a causa.
+     * @param message A mensagem detalhando a indisponibilidade.
+     * @param cause A exceção do bulkhead ou do circuit breaker.
+     */
+    public PaymentProviderUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.ecommerce.meninadourada.exception;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção para indicar que o limite de conexões SSE abertas neste nó foi atingido.
+ * Mapeada para o status HTTP 503 (Service Unavailable).
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StreamCapacityExceededException extends RuntimeException {
+
+    /**
+     * Construtor que aceita uma mensagem de erro.
+     * @param message A mensagem detalhando o limite atingido.
+     */
+    public StreamCapacityExceededException(String message) {
+        super(message);
+    }
+}
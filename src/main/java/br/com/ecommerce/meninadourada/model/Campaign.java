@@ -0,0 +1,118 @@
+package br.com.ecommerce.meninadourada.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Campanha de e-mail para os inscritos da newsletter.
+ * Guarda o template, as variáveis da campanha e o checkpoint do envio (último inscrito
+ * percorrido, em ordem de _id), para que o envio continue de onde parou após uma falha.
+ */
+@Document(collection = "newsletter_campaigns")
+@CompoundIndex(name = "status_lockedUntil", def = "{'status': 1, 'lockedUntil': 1}")
+public class Campaign {
+
+    @Id
+    private String id;
+
+    @Field("name")
+    private String name;
+
+    @Field("templateName")
+    private String templateName; // Template em templates/email (ex.: "newsletter")
+
+    @Field("variables")
+    private Map<String, String> variables = new HashMap<>(); // Variáveis do template (iguais para todos)
+
+    @Field("status")
+    private CampaignStatus status;
+
+    @Field("lastSubscriberId")
+    private String lastSubscriberId; // Checkpoint: último inscrito já processado
+
+    @Field("sentCount")
+    private long sentCount;
+
+    @Field("failedCount")
+    private long failedCount;
+
+    @Field("lockedUntil")
+    private LocalDateTime lockedUntil; // Reserva da instância que está enviando
+
+    @Field("lastError")
+    private String lastError;
+
+    @Field("failedAttempts")
+    private int failedAttempts; // Falhas seguidas da execução; zerado quando um lote avança o checkpoint
+
+    @Field("createdAt")
+    private LocalDateTime createdAt;
+
+    @Field("finishedAt")
+    private LocalDateTime finishedAt;
+
+    // Construtor padrão
+    public Campaign() {
+        this.createdAt = LocalDateTime.now();
+        this.status = CampaignStatus.RUNNING;
+    }
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getTemplateName() { return templateName; }
+    public void setTemplateName(String templateName) { this.templateName = templateName; }
+    public Map<String, String> getVariables() { return variables; }
+    public void setVariables(Map<String, String> variables) { this.variables = variables; }
+    public CampaignStatus getStatus() { return status; }
+    public void setStatus(CampaignStatus status) { this.status = status; }
+    public String getLastSubscriberId() { return lastSubscriberId; }
+    public void setLastSubscriberId(String lastSubscriberId) { this.lastSubscriberId = lastSubscriberId; }
+    public long getSentCount() { return sentCount; }
+    public void setSentCount(long sentCount) { this.sentCount = sentCount; }
+    public long getFailedCount() { return failedCount; }
+    public void setFailedCount(long failedCount) { this.failedCount = failedCount; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public int getFailedAttempts() { return failedAttempts; }
+    public void setFailedAttempts(int failedAttempts) { this.failedAttempts = failedAttempts; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    @Override
+    public String toString() {
+        return "Campaign{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", status=" + status +
+                ", sentCount=" + sentCount +
+                ", failedCount=" + failedCount +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Campaign that = (Campaign) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.ecommerce.meninadourada.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Status do envio de uma campanha para um inscrito.
+ * O ID é "campaignId:subscriptionId", então cada inscrito tem no máximo um registro por campanha.
+ */
+@Document(collection = "newsletter_campaign_recipients")
+@CompoundIndex(name = "campaignId_status", def = "{'campaignId': 1, 'status': 1}")
+public class CampaignRecipient {
+
+    @Id
+    private String id;
+
+    @Field("campaignId")
+    private String campaignId;
+
+    @Field("subscriptionId")
+    private String subscriptionId;
+
+    @Field("email")
+    private String email;
+
+    @Field("status")
+    private CampaignRecipientStatus status;
+
+    @Field("error")
+    private String error;
+
+    @Field("processedAt")
+    private LocalDateTime processedAt;
+
+    // Construtor padrão
+    public CampaignRecipient() {
+    }
+
+    // Construtor com todos os argumentos
+    public CampaignRecipient(String campaignId, String subscriptionId, String email, CampaignRecipientStatus status, String error) {
+        this.id = campaignId + ":" + subscriptionId;
+        this.campaignId = campaignId;
+        this.subscriptionId = subscriptionId;
+        this.email = email;
+        this.status = status;
+        this.error = error;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getCampaignId() { return campaignId; }
+    public void setCampaignId(String campaignId) { this.campaignId = campaignId; }
+    public String getSubscriptionId() { return subscriptionId; }
+    public void setSubscriptionId(String subscriptionId) { this.subscriptionId = subscriptionId; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public CampaignRecipientStatus getStatus() { return status; }
+    public void setStatus(CampaignRecipientStatus status) { this.status = status; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    @Override
+    public String toString() {
+        return "CampaignRecipient{" +
+                "id='" + id + '\'' +
+                ", email='" + email + '\'' +
+                ", status=" + status +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CampaignRecipient that = (CampaignRecipient) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,9 @@
+package br.com.ecommerce.meninadourada.model;
+
+/**
+ * Resultado do envio de uma campanha para um inscrito.
+ */
+public enum CampaignRecipientStatus {
+    SENT,           // Aceito pelo servidor SMTP
+    FAILED          // Recusado (ex.: destinatário inválido)
+}
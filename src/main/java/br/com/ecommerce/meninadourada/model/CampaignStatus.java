@@ -0,0 +1,11 @@
+package br.com.ecommerce.meninadourada.model;
+
+/**
+ * Estados de uma campanha da newsletter.
+ */
+public enum CampaignStatus {
+    RUNNING,        // Em envio (ou aguardando um executor, após falha ou reinício)
+    PAUSED,         // Pausada manualmente; retoma do checkpoint
+    COMPLETED,      // Todos os inscritos percorridos
+    FAILED          // Interrompida após falhas seguidas sem avançar (ex.: template inválido); mantém o checkpoint
+}
@@ -0,0 +1,134 @@
+package br.com.ecommerce.meninadourada.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * E-mail persistido na fila de envio.
+ * O EmailService apenas grava a mensagem já montada; o envio via SMTP acontece
+ * de forma assíncrona no EmailQueueService.
+ */
+@Document(collection = "email_queue")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+@CompoundIndex(name = "groupKey_status", def = "{'groupKey': 1, 'status': 1}")
+public class EmailQueueEntry {
+
+    @Id
+    private String id;
+
+    // Chave de deduplicação (ex.: "customer-confirmation:<orderId>"): o mesmo e-mail não é enfileirado duas vezes
+    @Indexed(unique = true)
+    @Field("dedupKey")
+    private String dedupKey;
+
+    // Agrupa e-mails enviados na mesma sessão SMTP (ex.: "order:<orderId>")
+    @Field("groupKey")
+    private String groupKey;
+
+    @Field("from")
+    private String from;
+
+    @Field("to")
+    private String to;
+
+    @Field("subject")
+    private String subject;
+
+    @Field("text")
+    private String text;
+
+    @Field("html")
+    private String html; // Alternativa HTML (opcional)
+
+    @Field("status")
+    private EmailQueueStatus status;
+
+    @Field("attempts")
+    private int attempts;
+
+    @Field("nextAttemptAt")
+    private LocalDateTime nextAttemptAt;
+
+    @Field("lockedUntil")
+    private LocalDateTime lockedUntil;
+
+    @Field("lastError")
+    private String lastError;
+
+    @Field("createdAt")
+    private LocalDateTime createdAt;
+
+    // Só e-mails SENT têm sentAt; são removidos (com o HTML) 30 dias após o envio
+    @Indexed(expireAfter = "30d")
+    @Field("sentAt")
+    private LocalDateTime sentAt;
+
+    // Construtor padrão
+    public EmailQueueEntry() {
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.status = EmailQueueStatus.PENDING;
+    }
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getDedupKey() { return dedupKey; }
+    public void setDedupKey(String dedupKey) { this.dedupKey = dedupKey; }
+    public String getGroupKey() { return groupKey; }
+    public void setGroupKey(String groupKey) { this.groupKey = groupKey; }
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+    public String getTo() { return to; }
+    public void setTo(String to) { this.to = to; }
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+    public String getHtml() { return html; }
+    public void setHtml(String html) { this.html = html; }
+    public EmailQueueStatus getStatus() { return status; }
+    public void setStatus(EmailQueueStatus status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+
+    @Override
+    public String toString() {
+        return "EmailQueueEntry{" +
+                "id='" + id + '\'' +
+                ", dedupKey='" + dedupKey + '\'' +
+                ", to='" + to + '\'' +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EmailQueueEntry that = (EmailQueueEntry) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
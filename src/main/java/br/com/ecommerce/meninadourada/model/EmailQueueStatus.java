@@ -0,0 +1,11 @@
+package br.com.ecommerce.meninadourada.model;
+
+/**
+ * Estados de um e-mail na fila de envio.
+ */
+public enum EmailQueueStatus {
+    PENDING,        // Aguardando envio (ou nova tentativa)
+    SENDING,        // Reservado por um worker até lockedUntil
+    SENT,           // Aceito pelo servidor SMTP
+    DEAD_LETTER     // Tentativas esgotadas; requer intervenção manual
+}
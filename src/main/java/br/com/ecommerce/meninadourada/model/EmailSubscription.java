@@ -1,6 +1,7 @@
 package br.com.ecommerce.meninadourada.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed; // Importe para criar índice único
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime; // Para registrar a data de cadastro
 import java.util.Objects;
 
 @Document(collection = "newsletter_subscriptions") // Nome da coleção no MongoDB
+@CompoundIndex(name = "subscribedAt_id", def = "{'subscribedAt': -1, '_id': -1}") // Listagem paginada e exportação
 public class EmailSubscription {
 
     // O ID da inscrição. Mapeia para o campo _id do MongoDB.
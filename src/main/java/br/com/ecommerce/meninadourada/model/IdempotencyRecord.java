@@ -0,0 +1,96 @@
+package br.com.ecommerce.meninadourada.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Registro de uma chave de idempotência (header Idempotency-Key).
+ * Guarda a resposta serializada da primeira requisição; o índice TTL em createdAt
+ * remove os registros automaticamente após 24 horas. Enquanto IN_PROGRESS, o registro tem
+ * uma concessão (lockedUntil): se a instância dona cair, outra assume a chave quando ela vence.
+ */
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    // Escopo + chave informada pelo cliente (ex.: "create-preference:3f2a...")
+    @Id
+    private String id;
+
+    // Hash do corpo da requisição, para detectar reuso da chave com outro payload
+    @Field("requestHash")
+    private String requestHash;
+
+    @Field("status")
+    private IdempotencyStatus status;
+
+    // Resposta serializada em JSON (preenchida quando COMPLETED)
+    @Field("responseBody")
+    private String responseBody;
+
+    // Fim da concessão da requisição em andamento (só em IN_PROGRESS)
+    @Field("lockedUntil")
+    private LocalDateTime lockedUntil;
+
+    @Indexed(expireAfter = "24h")
+    @Field("createdAt")
+    private LocalDateTime createdAt;
+
+    // Construtor padrão
+    public IdempotencyRecord() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Construtor com todos os argumentos
+    public IdempotencyRecord(String id, String requestHash, IdempotencyStatus status, String responseBody,
+                             LocalDateTime lockedUntil, LocalDateTime createdAt) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.status = status;
+        this.responseBody = responseBody;
+        this.lockedUntil = lockedUntil;
+        this.createdAt = createdAt;
+    }
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    public IdempotencyStatus getStatus() { return status; }
+    public void setStatus(IdempotencyStatus status) { this.status = status; }
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "id='" + id + '\'' +
+                ", requestHash='" + requestHash + '\'' +
+                ", status=" + status +
+                ", lockedUntil=" + lockedUntil +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdempotencyRecord that = (IdempotencyRecord) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
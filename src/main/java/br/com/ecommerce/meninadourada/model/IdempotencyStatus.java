@@ -0,0 +1,9 @@
+package br.com.ecommerce.meninadourada.model;
+
+/**
+ * Estados de uma chave de idempotência.
+ */
+public enum IdempotencyStatus {
+    IN_PROGRESS,    // Primeira requisição com a chave ainda em execução
+    COMPLETED       // Resposta gravada; repetições recebem a mesma resposta
+}
@@ -1,6 +1,8 @@
 package br.com.ecommerce.meninadourada.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -16,6 +18,9 @@ import java.util.Objects;
  * Updated to include customer contact and shipping address details.
  */
 @Document(collection = "orders") // Collection name in MongoDB
+@CompoundIndex(name = "status_orderDate", def = "{'status': 1, 'orderDate': 1}") // Used by the archival job
+@CompoundIndex(name = "customerEmail_orderDate", def = "{'customerEmail': 1, 'orderDate': -1, '_id': -1}") // Customer order history
+@CompoundIndex(name = "paymentStatus_orderDate", def = "{'paymentStatus': 1, 'orderDate': 1, '_id': 1}") // Payment reconciliation
 public class Order {
 
     @Id
@@ -36,12 +41,14 @@ public class Order {
     @Field("status")
     private OrderStatus status; // Order status (PENDING, PAID, SHIPPED, etc.)
 
+    @Indexed
     @Field("paymentId")
     private String paymentId; // Payment transaction ID (e.g., Mercado Pago Preference ID or Order ID)
 
     @Field("paymentStatus")
     private String paymentStatus; // Payment status (PENDING, APPROVED, REJECTED, etc.)
 
+    @Indexed
     @Field("externalReference")
     private String externalReference; // External reference from Mercado Pago (UUID)
 
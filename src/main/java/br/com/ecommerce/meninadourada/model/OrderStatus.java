@@ -11,5 +11,14 @@ public enum OrderStatus {
     DELIVERED,      // Order delivered
     CANCELLED,      // Order cancelled
     REFUNDED,       // Order refunded
-    REJECTED        // Payment rejected
+    REJECTED;       // Payment rejected
+
+    /**
+     * Indicates whether the order can no longer change status.
+     * Orders in terminal states are eligible for archival.
+     * @return true for DELIVERED, CANCELLED, REFUNDED and REJECTED.
+     */
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED || this == REFUNDED || this == REJECTED;
+    }
 }
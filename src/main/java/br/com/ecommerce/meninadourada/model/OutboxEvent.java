@@ -0,0 +1,123 @@
+package br.com.ecommerce.meninadourada.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Evento do outbox de pedidos.
+ * É gravado na mesma transação que a mudança de status do pedido e despachado
+ * depois, em segundo plano, pelo OutboxDispatcher.
+ */
+@Document(collection = "order_outbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    @Field("aggregateId")
+    private String aggregateId; // ID do pedido que originou o evento
+
+    @Field("eventType")
+    private OutboxEventType eventType;
+
+    @Field("status")
+    private OutboxEventStatus status;
+
+    // Handlers que já concluíram este evento (checkpoint por handler)
+    @Field("completedHandlers")
+    private Set<String> completedHandlers = new HashSet<>();
+
+    @Field("attempts")
+    private int attempts;
+
+    @Field("nextAttemptAt")
+    private LocalDateTime nextAttemptAt;
+
+    @Field("lockedUntil")
+    private LocalDateTime lockedUntil;
+
+    @Field("lastError")
+    private String lastError;
+
+    @Field("createdAt")
+    private LocalDateTime createdAt;
+
+    // Só eventos DONE têm processedAt; são removidos 30 dias após a conclusão
+    @Indexed(expireAfter = "30d")
+    @Field("processedAt")
+    private LocalDateTime processedAt;
+
+    // Construtor padrão
+    public OutboxEvent() {
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.status = OutboxEventStatus.PENDING;
+    }
+
+    // Construtor com os campos de negócio
+    public OutboxEvent(String id, String aggregateId, OutboxEventType eventType) {
+        this();
+        this.id = id;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+    }
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getAggregateId() { return aggregateId; }
+    public void setAggregateId(String aggregateId) { this.aggregateId = aggregateId; }
+    public OutboxEventType getEventType() { return eventType; }
+    public void setEventType(OutboxEventType eventType) { this.eventType = eventType; }
+    public OutboxEventStatus getStatus() { return status; }
+    public void setStatus(OutboxEventStatus status) { this.status = status; }
+    public Set<String> getCompletedHandlers() { return completedHandlers; }
+    public void setCompletedHandlers(Set<String> completedHandlers) { this.completedHandlers = completedHandlers; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id='" + id + '\'' +
+                ", aggregateId='" + aggregateId + '\'' +
+                ", eventType=" + eventType +
+                ", status=" + status +
+                ", completedHandlers=" + completedHandlers +
+                ", attempts=" + attempts +
+                ", nextAttemptAt=" + nextAttemptAt +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OutboxEvent that = (OutboxEvent) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.ecommerce.meninadourada.model;
+
+/**
+ * Estados possíveis de um evento do outbox.
+ */
+public enum OutboxEventStatus {
+    PENDING,        // Aguardando despacho (ou nova tentativa)
+    PROCESSING,     // Reservado por um despachante até lockedUntil
+    DONE,           // Todos os handlers concluídos
+    FAILED          // Tentativas esgotadas; requer intervenção manual
+}
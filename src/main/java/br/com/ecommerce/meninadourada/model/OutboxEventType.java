@@ -0,0 +1,9 @@
+package br.com.ecommerce.meninadourada.model;
+
+/**
+ * Tipos de eventos gravados no outbox de pedidos.
+ * Cada tipo representa uma transição de pedido que dispara efeitos colaterais.
+ */
+public enum OutboxEventType {
+    ORDER_PAID      // Pedido passou para PAID (e-mails de confirmação e notificação da loja)
+}
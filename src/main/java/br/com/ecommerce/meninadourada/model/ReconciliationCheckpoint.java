@@ -0,0 +1,90 @@
+package br.com.ecommerce.meninadourada.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Checkpoint da reconciliação de pagamentos.
+ * Guarda a posição (orderDate, _id) do último pedido pendente verificado, para que a
+ * próxima execução continue a varredura de onde a anterior parou.
+ * O documento também é a reserva da execução: só a instância com lockedBy e lockedUntil
+ * válidos percorre os pedidos, então réplicas não disputam o checkpoint.
+ */
+@Document(collection = "reconciliation_checkpoints")
+public class ReconciliationCheckpoint {
+
+    // Nome do job (ex.: "payment-reconciliation")
+    @Id
+    private String id;
+
+    @Field("lastOrderDate")
+    private LocalDateTime lastOrderDate;
+
+    @Field("lastOrderId")
+    private String lastOrderId;
+
+    @Field("updatedAt")
+    private LocalDateTime updatedAt;
+
+    // Execução que detém a reserva e até quando ela vale
+    @Field("lockedBy")
+    private String lockedBy;
+
+    @Field("lockedUntil")
+    private LocalDateTime lockedUntil;
+
+    // Construtor padrão
+    public ReconciliationCheckpoint() {
+    }
+
+    // Construtor com todos os argumentos
+    public ReconciliationCheckpoint(String id, LocalDateTime lastOrderDate, String lastOrderId, LocalDateTime updatedAt) {
+        this.id = id;
+        this.lastOrderDate = lastOrderDate;
+        this.lastOrderId = lastOrderId;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public LocalDateTime getLastOrderDate() { return lastOrderDate; }
+    public void setLastOrderDate(LocalDateTime lastOrderDate) { this.lastOrderDate = lastOrderDate; }
+    public String getLastOrderId() { return lastOrderId; }
+    public void setLastOrderId(String lastOrderId) { this.lastOrderId = lastOrderId; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+
+    @Override
+    public String toString() {
+        return "ReconciliationCheckpoint{" +
+                "id='" + id + '\'' +
+                ", lastOrderDate=" + lastOrderDate +
+                ", lastOrderId='" + lastOrderId + '\'' +
+                ", updatedAt=" + updatedAt +
+                ", lockedBy='" + lockedBy + '\'' +
+                ", lockedUntil=" + lockedUntil +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReconciliationCheckpoint that = (ReconciliationCheckpoint) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
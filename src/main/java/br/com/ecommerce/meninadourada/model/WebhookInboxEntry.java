@@ -0,0 +1,146 @@
+package br.com.ecommerce.meninadourada.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Notificação de webhook do Mercado Pago persistida na caixa de entrada.
+ * O endpoint apenas grava este documento e responde 200; o processamento
+ * acontece de forma assíncrona no WebhookInboxService.
+ * O índice único parcial em dedupKey (só entre as PENDING) garante uma única entrada
+ * pendente por (topic, id), mesmo com upserts concorrentes.
+ */
+@Document(collection = "webhook_inbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+@CompoundIndex(name = "dedupKey_pending", def = "{'dedupKey': 1}", unique = true, partialFilter = "{'status': 'PENDING'}")
+public class WebhookInboxEntry {
+
+    @Id
+    private String id;
+
+    @Field("topic")
+    private String topic; // Ex.: "payment", "merchant_order"
+
+    @Field("resourceId")
+    private String resourceId; // ID do pagamento ou da merchant order no Mercado Pago
+
+    @Field("dedupKey")
+    private String dedupKey; // "topic:resourceId", usado para deduplicar notificações repetidas
+
+    @Field("notificationCount")
+    private int notificationCount; // Quantas notificações (originais + repetidas) esta entrada representa
+
+    @Field("payload")
+    private Map<String, Object> payload; // Corpo bruto recebido (para auditoria)
+
+    @Field("externalReference")
+    private String externalReference; // Preenchida após o processamento
+
+    @Field("coalescedInto")
+    private String coalescedInto; // ID da entrada cujo processamento já cobriu esta notificação
+
+    @Field("status")
+    private WebhookInboxStatus status;
+
+    @Field("attempts")
+    private int attempts;
+
+    @Field("nextAttemptAt")
+    private LocalDateTime nextAttemptAt;
+
+    @Field("lockedUntil")
+    private LocalDateTime lockedUntil;
+
+    @Field("lastError")
+    private String lastError;
+
+    @Field("receivedAt")
+    private LocalDateTime receivedAt;
+
+    // Só notificações DONE têm processedAt; são removidas 30 dias após o processamento
+    @Indexed(expireAfter = "30d")
+    @Field("processedAt")
+    private LocalDateTime processedAt;
+
+    // Construtor padrão
+    public WebhookInboxEntry() {
+        this.receivedAt = LocalDateTime.now();
+        this.nextAttemptAt = this.receivedAt;
+        this.status = WebhookInboxStatus.PENDING;
+    }
+
+    // Construtor com os dados da notificação
+    public WebhookInboxEntry(String id, String topic, String resourceId, Map<String, Object> payload) {
+        this();
+        this.id = id;
+        this.topic = topic;
+        this.resourceId = resourceId;
+        this.dedupKey = topic + ":" + resourceId;
+        this.notificationCount = 1;
+        this.payload = payload;
+    }
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+    public String getResourceId() { return resourceId; }
+    public void setResourceId(String resourceId) { this.resourceId = resourceId; }
+    public String getDedupKey() { return dedupKey; }
+    public void setDedupKey(String dedupKey) { this.dedupKey = dedupKey; }
+    public int getNotificationCount() { return notificationCount; }
+    public void setNotificationCount(int notificationCount) { this.notificationCount = notificationCount; }
+    public Map<String, Object> getPayload() { return payload; }
+    public void setPayload(Map<String, Object> payload) { this.payload = payload; }
+    public String getExternalReference() { return externalReference; }
+    public void setExternalReference(String externalReference) { this.externalReference = externalReference; }
+    public String getCoalescedInto() { return coalescedInto; }
+    public void setCoalescedInto(String coalescedInto) { this.coalescedInto = coalescedInto; }
+    public WebhookInboxStatus getStatus() { return status; }
+    public void setStatus(WebhookInboxStatus status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    @Override
+    public String toString() {
+        return "WebhookInboxEntry{" +
+                "id='" + id + '\'' +
+                ", topic='" + topic + '\'' +
+                ", resourceId='" + resourceId + '\'' +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                ", receivedAt=" + receivedAt +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WebhookInboxEntry that = (WebhookInboxEntry) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
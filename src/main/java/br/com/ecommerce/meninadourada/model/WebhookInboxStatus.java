@@ -0,0 +1,11 @@
+package br.com.ecommerce.meninadourada.model;
+
+/**
+ * Estados de uma notificação de webhook na caixa de entrada (inbox).
+ */
+public enum WebhookInboxStatus {
+    PENDING,        // Recebida e aguardando processamento (ou nova tentativa)
+    PROCESSING,     // Reservada por um worker até lockedUntil
+    DONE,           // Processada com sucesso
+    DEAD_LETTER     // Tentativas esgotadas; requer intervenção manual
+}
@@ -0,0 +1,13 @@
+package br.com.ecommerce.meninadourada.repository;
+
+import br.com.ecommerce.meninadourada.model.Campaign;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositório para as campanhas da newsletter.
+ * A reserva e o checkpoint do envio são feitos via MongoTemplate no NewsletterCampaignService.
+ */
+@Repository
+public interface CampaignRepository extends MongoRepository<Campaign, String> {
+}
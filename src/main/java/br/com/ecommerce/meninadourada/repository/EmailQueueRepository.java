@@ -0,0 +1,13 @@
+package br.com.ecommerce.meninadourada.repository;
+
+import br.com.ecommerce.meninadourada.model.EmailQueueEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositório para a fila de envio de e-mails.
+ * A reserva e o envio das mensagens são feitos via MongoTemplate no EmailQueueService.
+ */
+@Repository
+public interface EmailQueueRepository extends MongoRepository<EmailQueueEntry, String> {
+}
@@ -9,4 +9,6 @@ import java.util.Optional;
 public interface EmailSubscriptionRepository extends MongoRepository<EmailSubscription, String>{
 
     Optional<EmailSubscription> findByEmail(String email);
+
+    boolean existsByEmail(String email);
 }
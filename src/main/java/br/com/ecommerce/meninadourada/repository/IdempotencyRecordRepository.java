@@ -0,0 +1,12 @@
+package br.com.ecommerce.meninadourada.repository;
+
+import br.com.ecommerce.meninadourada.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositório para os registros de chaves de idempotência (coleção com TTL).
+ */
+@Repository
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String> {
+}
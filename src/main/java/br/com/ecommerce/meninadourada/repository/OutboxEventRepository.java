@@ -0,0 +1,13 @@
+package br.com.ecommerce.meninadourada.repository;
+
+import br.com.ecommerce.meninadourada.model.OutboxEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositório para os eventos do outbox de pedidos.
+ * A reserva e o despacho dos eventos são feitos via MongoTemplate no OutboxDispatcher.
+ */
+@Repository
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String> {
+}
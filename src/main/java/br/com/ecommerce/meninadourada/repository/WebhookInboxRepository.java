@@ -0,0 +1,13 @@
+package br.com.ecommerce.meninadourada.repository;
+
+import br.com.ecommerce.meninadourada.model.WebhookInboxEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositório para a caixa de entrada de webhooks do Mercado Pago.
+ * A reserva das notificações é feita via MongoTemplate no WebhookInboxService.
+ */
+@Repository
+public interface WebhookInboxRepository extends MongoRepository<WebhookInboxEntry, String> {
+}
@@ -0,0 +1,266 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.EmailQueueEntry;
+import br.com.ecommerce.meninadourada.model.EmailQueueStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fila durável de envio de e-mails (coleção email_queue).
+ * Quem envia só grava a mensagem já montada; um pool limitado de workers faz o envio
+ * via SMTP de forma assíncrona, com novas tentativas com backoff exponencial e estado
+ * DEAD_LETTER quando as tentativas se esgotam ou o destinatário é recusado pelo servidor.
+ * Assim a latência do processamento de
+ * pagamentos não depende do servidor SMTP.
+ * Os e-mails são reservados e enviados em lotes por uma mesma conexão SMTP (SmtpBatchSender);
+ * os e-mails do mesmo grupo (ex.: os dois e-mails de um pedido) entram sempre no mesmo lote.
+ */
+@Service
+public class EmailQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailQueueService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final SmtpBatchSender smtpBatchSender;
+
+    private ThreadPoolExecutor workers;
+
+    @Value("${email.queue.workers:2}")
+    private int workerCount;
+
+    @Value("${email.queue.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${email.queue.batch-size:20}")
+    private int batchSize;
+
+    // Atraso do primeiro envio de e-mails agrupados, para os demais e-mails do grupo chegarem à fila
+    @Value("${email.queue.group-delay-ms:500}")
+    private long groupDelayMs;
+
+    @Value("${email.queue.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.queue.lock-seconds:120}")
+    private long lockSeconds;
+
+    @Value("${email.queue.base-backoff-seconds:10}")
+    private long baseBackoffSeconds;
+
+    @Value("${email.queue.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Autowired
+    public EmailQueueService(MongoTemplate mongoTemplate, SmtpBatchSender smtpBatchSender) {
+        this.mongoTemplate = mongoTemplate;
+        this.smtpBatchSender = smtpBatchSender;
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "email-queue-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopWorkers() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Mensagens em andamento voltam a ser enviadas quando o lock expirar
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Grava um e-mail pendente na fila com um único upsert pela chave de deduplicação.
+     * Se a mesma chave já foi enfileirada (ex.: nova tentativa do outbox), nada muda.
+     *
+     * @param dedupKey Chave que identifica o e-mail (ex.: "customer-confirmation:&lt;orderId&gt;").
+     * @param groupKey Grupo de envio (e-mails do mesmo grupo compartilham a sessão SMTP); pode ser null.
+     * @param from O remetente.
+     * @param to O destinatário.
+     * @param subject O assunto.
+     * @param text O corpo em texto.
+     * @param html O corpo em HTML (alternativa ao texto); pode ser null.
+     * @return A entrada da fila (nova ou a já existente).
+     */
+    public EmailQueueEntry enqueue(String dedupKey, String groupKey, String from, String to, String subject, String text, String html) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .setOnInsert("_id", new ObjectId().toHexString())
+                .setOnInsert("groupKey", groupKey)
+                .setOnInsert("from", from)
+                .setOnInsert("to", to)
+                .setOnInsert("subject", subject)
+                .setOnInsert("text", text)
+                .setOnInsert("html", html)
+                .setOnInsert("status", EmailQueueStatus.PENDING)
+                .setOnInsert("attempts", 0)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("nextAttemptAt", groupKey != null ? now.plus(Duration.ofMillis(groupDelayMs)) : now);
+        EmailQueueEntry entry = mongoTemplate.findAndModify(new Query(Criteria.where("dedupKey").is(dedupKey)), update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), EmailQueueEntry.class);
+        logger.info("E-mail {} para {} na fila. ID: {}, status={}", dedupKey, to, entry.getId(), entry.getStatus());
+        return entry;
+    }
+
+    /**
+     * Varre a fila em busca de e-mails prontos (novos, novas tentativas ou locks expirados)
+     * e os entrega ao pool em lotes enquanto houver capacidade.
+     */
+    @Scheduled(fixedDelayString = "${email.queue.poll-interval-ms:1000}")
+    public void pollPendingEmails() {
+        while (workers.getQueue().remainingCapacity() > 0) {
+            List<EmailQueueEntry> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!trySubmit(batch)) {
+                batch.forEach(this::release);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reserva até batchSize e-mails prontos. Ao reservar um e-mail de um grupo,
+     * os demais e-mails prontos do mesmo grupo entram no mesmo lote.
+     */
+    private List<EmailQueueEntry> claimBatch() {
+        List<EmailQueueEntry> batch = new ArrayList<>();
+        EmailQueueEntry entry;
+        while (batch.size() < batchSize && (entry = claimNextEntry(null)) != null) {
+            batch.add(entry);
+            if (entry.getGroupKey() != null) {
+                EmailQueueEntry sibling;
+                while ((sibling = claimNextEntry(entry.getGroupKey())) != null) {
+                    batch.add(sibling);
+                }
+            }
+        }
+        return batch;
+    }
+
+    private boolean trySubmit(List<EmailQueueEntry> batch) {
+        try {
+            workers.execute(() -> sendBatch(batch));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.debug("Pool de e-mails cheio; as mensagens serão enviadas no próximo ciclo.");
+            return false;
+        }
+    }
+
+    private void sendBatch(List<EmailQueueEntry> batch) {
+        List<EmailQueueEntry> ready = new ArrayList<>(batch.size());
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (EmailQueueEntry entry : batch) {
+            try {
+                messages.add(smtpBatchSender.createMessage(entry.getFrom(), entry.getTo(), entry.getSubject(), entry.getText(), entry.getHtml()));
+                ready.add(entry);
+            } catch (Exception e) {
+                scheduleRetry(entry, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<Exception> failures = smtpBatchSender.send(messages);
+        List<String> sentIds = new ArrayList<>(ready.size());
+        for (int i = 0; i < ready.size(); i++) {
+            if (failures.get(i) == null) {
+                sentIds.add(ready.get(i).getId());
+            } else {
+                scheduleRetry(ready.get(i), failures.get(i));
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(sentIds)), new Update()
+                    .set("status", EmailQueueStatus.SENT)
+                    .set("sentAt", LocalDateTime.now())
+                    .unset("lockedUntil"), EmailQueueEntry.class);
+            logger.info("{} de {} e-mail(s) do lote enviado(s).", sentIds.size(), batch.size());
+        }
+    }
+
+    private void scheduleRetry(EmailQueueEntry entry, Exception e) {
+        int attempts = entry.getAttempts() + 1;
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("lastError", e.getMessage())
+                .unset("lockedUntil");
+        if (SmtpBatchSender.isRecipientRejection(e)) {
+            // Destinatário recusado pelo servidor (5xx no RCPT): uma nova tentativa teria o mesmo resultado
+            update.set("status", EmailQueueStatus.DEAD_LETTER);
+            logger.error("E-mail {} para {} movido para DEAD_LETTER: destinatário recusado: {}",
+                    entry.getDedupKey(), entry.getTo(), e.getMessage());
+        } else if (attempts >= maxAttempts) {
+            update.set("status", EmailQueueStatus.DEAD_LETTER);
+            logger.error("E-mail {} para {} movido para DEAD_LETTER após {} tentativas: {}",
+                    entry.getDedupKey(), entry.getTo(), attempts, e.getMessage(), e);
+        } else {
+            long backoff = Math.min(maxBackoffSeconds, baseBackoffSeconds << Math.min(attempts - 1, 20));
+            update.set("status", EmailQueueStatus.PENDING)
+                    .set("nextAttemptAt", LocalDateTime.now().plusSeconds(backoff));
+            logger.warn("Falha ao enviar e-mail {} para {} (tentativa {}). Nova tentativa em {}s: {}",
+                    entry.getDedupKey(), entry.getTo(), attempts, backoff, e.getMessage());
+        }
+        mongoTemplate.updateFirst(byId(entry.getId()), update, EmailQueueEntry.class);
+    }
+
+    private EmailQueueEntry claimNextEntry(String groupKey) {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria ready = new Criteria().orOperator(
+                Criteria.where("status").is(EmailQueueStatus.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(EmailQueueStatus.SENDING).and("lockedUntil").lte(now));
+        if (groupKey != null) {
+            ready = new Criteria().andOperator(Criteria.where("groupKey").is(groupKey), ready);
+        }
+        Query query = new Query(ready).with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update update = new Update()
+                .set("status", EmailQueueStatus.SENDING)
+                .set("lockedUntil", now.plusSeconds(lockSeconds));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), EmailQueueEntry.class);
+    }
+
+    private void release(EmailQueueEntry entry) {
+        mongoTemplate.updateFirst(byId(entry.getId()), new Update()
+                .set("status", EmailQueueStatus.PENDING)
+                .unset("lockedUntil"), EmailQueueEntry.class);
+    }
+
+    private Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
+    }
+}
@@ -3,141 +3,148 @@ package br.com.ecommerce.meninadourada.service;
 
 import br.com.ecommerce.meninadourada.model.Order; // Importe sua entidade Order
 import br.com.ecommerce.meninadourada.model.OrderItem; // Importe sua entidade OrderItem
+import br.com.ecommerce.meninadourada.model.ShippingAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailException; // Importe para tratamento de exceções de e-mail
-import org.springframework.mail.SimpleMailMessage; // Importe para e-mails simples
-import org.springframework.mail.javamail.JavaMailSender; // Importe para enviar e-mails
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta os e-mails de pedido a partir dos templates (EmailTemplateEngine) e os grava na
+ * fila de envio (EmailQueueService), com versão em texto e HTML.
+ * O envio via SMTP acontece depois, em segundo plano, com novas tentativas.
+ */
 @Service
 public class EmailService {
 
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
-    private final JavaMailSender mailSender;
+    private final EmailQueueService emailQueueService;
+    private final EmailTemplateEngine templateEngine;
 
     @Value("${spring.mail.username}")
     private String remetenteEmail; // E-mail do remetente (configurado no application.properties)
 
     @Autowired
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailQueueService emailQueueService, EmailTemplateEngine templateEngine) {
+        this.emailQueueService = emailQueueService;
+        this.templateEngine = templateEngine;
     }
 
     /**
-     * Envia um e-mail de confirmação de compra para o cliente.
+     * Enfileira o e-mail de confirmação de compra para o cliente.
+     * Chamadas repetidas para o mesmo pedido não geram um segundo e-mail.
      *
      * @param order O objeto Order completo com os detalhes do pedido.
      */
     public void sendOrderConfirmationEmailToCustomer(Order order) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(remetenteEmail);
-        message.setTo(order.getCustomerEmail()); // E-mail do cliente
-        message.setSubject("Parabéns pela sua compra na Menina Dourada! Pedido #" + order.getId());
-
-        StringBuilder text = new StringBuilder();
-        text.append("Olá ").append(order.getCustomerName()).append(",\n\n");
-        text.append("Parabéns pela sua compra na Menina Dourada! Seu pedido foi aprovado e está sendo processado.\n\n");
-        text.append("Detalhes do Pedido:\n");
-        text.append("Número do Pedido: #").append(order.getId()).append("\n");
-        text.append("Data do Pedido: ").append(order.getOrderDate()).append("\n");
-        text.append("Valor Total: R$ ").append(order.getTotalAmount()).append("\n\n");
-
-        text.append("Itens do Pedido:\n");
-        for (OrderItem item : order.getItems()) {
-            text.append("- ").append(item.getQuantity()).append("x ")
-                    .append(item.getProductName()).append(" (Variação: ").append(item.getVariationId())
-                    .append(") - R$ ").append(item.getUnitPrice()).append(" cada\n");
-        }
-        text.append("\n");
-
-        text.append("Endereço de Entrega:\n");
-        text.append(order.getCustomerName()).append("\n");
-        text.append(order.getShippingAddress().getStreetName()).append(", ")
-                .append(order.getShippingAddress().getStreetNumber());
-        if (order.getShippingAddress().getComplement() != null && !order.getShippingAddress().getComplement().isEmpty()) {
-            text.append(" - ").append(order.getShippingAddress().getComplement());
-        }
-        text.append("\n");
-        text.append(order.getShippingAddress().getNeighborhood()).append(", ")
-                .append(order.getShippingAddress().getCityName()).append(" - ")
-                .append(order.getShippingAddress().getStateName()).append("\n");
-        text.append("CEP: ").append(order.getShippingAddress().getZipCode()).append("\n");
-        text.append("País: ").append(order.getShippingAddress().getCountryName()).append("\n\n");
-
-        text.append("Agradecemos a sua preferência!\n");
-        text.append("Equipe Menina Dourada.");
-
-        message.setText(text.toString());
-
-        try {
-            mailSender.send(message);
-            logger.info("E-mail de confirmação de pedido enviado para: {}", order.getCustomerEmail());
-        } catch (MailException e) {
-            logger.error("Falha ao enviar e-mail de confirmação de pedido para {}: {}", order.getCustomerEmail(), e.getMessage(), e);
-            // Em produção, você pode querer re-tentar ou notificar um sistema de monitoramento
-        }
+        EmailTemplateEngine.RenderedEmail email = renderOrderConfirmation(order);
+        emailQueueService.enqueue("customer-confirmation:" + order.getId(), "order:" + order.getId(),
+                remetenteEmail, order.getCustomerEmail(), email.getSubject(), email.getText(), email.getHtml());
+        logger.info("E-mail de confirmação de pedido enfileirado para: {}", order.getCustomerEmail());
     }
 
     /**
-     * Envia um e-mail de notificação de nova venda para a loja (Menina Dourada).
+     * Enfileira o e-mail de notificação de nova venda para a loja (Menina Dourada).
+     * Chamadas repetidas para o mesmo pedido não geram um segundo e-mail.
      *
      * @param order O objeto Order completo com os detalhes do pedido.
      */
     public void sendNewSaleNotificationToStore(Order order) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(remetenteEmail);
-        message.setTo(remetenteEmail); // Envia para o próprio e-mail da loja
-        message.setSubject("NOVA VENDA APROVADA! Pedido #" + order.getId());
-
-        StringBuilder text = new StringBuilder();
-        text.append("Uma nova venda foi aprovada na loja Menina Dourada!\n\n");
-        text.append("Detalhes do Pedido:\n");
-        text.append("Número do Pedido: #").append(order.getId()).append("\n");
-        text.append("Data do Pedido: ").append(order.getOrderDate()).append("\n");
-        text.append("Valor Total: R$ ").append(order.getTotalAmount()).append("\n");
-        text.append("Status de Pagamento: ").append(order.getPaymentStatus()).append("\n");
-        text.append("Referência Externa (MP): ").append(order.getExternalReference()).append("\n\n");
-
-        text.append("Cliente:\n");
-        text.append("Nome: ").append(order.getCustomerName()).append("\n");
-        text.append("Email: ").append(order.getCustomerEmail()).append("\n");
-        text.append("Telefone: ").append(order.getCustomerPhone()).append("\n");
-        text.append("CPF: ").append(order.getCustomerCpf()).append("\n\n");
-
-        text.append("Itens da Venda:\n");
-        for (OrderItem item : order.getItems()) {
-            text.append("- ").append(item.getQuantity()).append("x ")
-                    .append(item.getProductName() != null ? item.getProductName() : "Produto")
-                    .append(item.getProductName()).append(" (Variação: ").append(item.getProductName())
-                    .append(") - R$ ").append(item.getUnitPrice()).append(" cada\n");
-        }
-        text.append("\n");
+        EmailTemplateEngine.RenderedEmail email = renderNewSaleNotification(order);
+        // Envia para o próprio e-mail da loja
+        emailQueueService.enqueue("store-new-sale:" + order.getId(), "order:" + order.getId(),
+                remetenteEmail, remetenteEmail, email.getSubject(), email.getText(), email.getHtml());
+        logger.info("E-mail de notificação de nova venda enfileirado para a loja.");
+    }
 
-        text.append("Endereço de Entrega:\n");
-        text.append(order.getShippingAddress().getStreetName()).append(", ")
-                .append(order.getShippingAddress().getStreetNumber());
-        if (order.getShippingAddress().getComplement() != null && !order.getShippingAddress().getComplement().isEmpty()) {
-            text.append(" - ").append(order.getShippingAddress().getComplement());
+    /**
+     * Enfileira o e-mail com o link de acesso ao histórico de pedidos (link mágico).
+     * Pedidos repetidos do mesmo e-mail na mesma janela de 10 minutos não geram outro e-mail.
+     *
+     * @param customerEmail O e-mail do cliente.
+     * @param historyUrl O link assinado da página "Meus pedidos".
+     * @param validHours A validade do link, em horas (exibida no e-mail).
+     */
+    public void sendOrderHistoryLink(String customerEmail, String historyUrl, long validHours) {
+        Map<String, Object> model = new HashMap<>(4);
+        model.put("historyUrl", historyUrl);
+        model.put("validHours", validHours);
+        EmailTemplateEngine.RenderedEmail email = templateEngine.render("order-history-link", model);
+        long window = System.currentTimeMillis() / 600_000L;
+        emailQueueService.enqueue("order-history-link:" + customerEmail + ":" + window, "history:" + customerEmail,
+                remetenteEmail, customerEmail, email.getSubject(), email.getText(), email.getHtml());
+        logger.info("E-mail com link de acesso aos pedidos enfileirado para: {}", customerEmail);
+    }
+
+    /**
+     * Renderiza (sem enfileirar) o e-mail de confirmação de compra.
+     */
+    public EmailTemplateEngine.RenderedEmail renderOrderConfirmation(Order order) {
+        return templateEngine.render("order-confirmation", orderModel(order));
+    }
+
+    /**
+     * Renderiza (sem enfileirar) o e-mail de notificação de nova venda.
+     */
+    public EmailTemplateEngine.RenderedEmail renderNewSaleNotification(Order order) {
+        return templateEngine.render("new-sale-notification", orderModel(order));
+    }
+
+    /**
+     * Valores usados pelos templates de pedido (valores monetários já formatados).
+     */
+    private static Map<String, Object> orderModel(Order order) {
+        Map<String, Object> model = new HashMap<>(32);
+        model.put("orderId", order.getId());
+        model.put("orderDate", order.getOrderDate() != null ? DATE_FORMAT.format(order.getOrderDate()) : "");
+        model.put("totalAmount", money(order.getTotalAmount()));
+        model.put("paymentStatus", order.getPaymentStatus());
+        model.put("externalReference", order.getExternalReference());
+        model.put("customerName", order.getCustomerName());
+        model.put("customerEmail", order.getCustomerEmail());
+        model.put("customerPhone", order.getCustomerPhone());
+        model.put("customerCpf", order.getCustomerCpf());
+
+        List<Map<String, Object>> items = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            Map<String, Object> itemModel = new HashMap<>(8);
+            itemModel.put("quantity", item.getQuantity());
+            itemModel.put("productName", item.getProductName() != null ? item.getProductName() : "Produto");
+            itemModel.put("variationId", item.getVariationId());
+            itemModel.put("unitPrice", money(item.getUnitPrice()));
+            items.add(itemModel);
         }
-        text.append("\n");
-        text.append(order.getShippingAddress().getNeighborhood()).append(", ")
-                .append(order.getShippingAddress().getCityName()).append(" - ")
-                .append(order.getShippingAddress().getStateName()).append("\n");
-        text.append("CEP: ").append(order.getShippingAddress().getZipCode()).append("\n");
-        text.append("País: ").append(order.getShippingAddress().getCountryName()).append("\n\n");
-
-        message.setText(text.toString());
-
-        try {
-            mailSender.send(message);
-            logger.info("E-mail de notificação de nova venda enviado para a loja.");
-        } catch (MailException e) {
-            logger.error("Falha ao enviar e-mail de notificação de nova venda para a loja: {}", e.getMessage(), e);
+        model.put("items", items);
+
+        ShippingAddress address = order.getShippingAddress();
+        if (address != null) {
+            Map<String, Object> shipping = new HashMap<>(16);
+            shipping.put("streetName", address.getStreetName());
+            shipping.put("streetNumber", address.getStreetNumber());
+            shipping.put("complement", address.getComplement());
+            shipping.put("neighborhood", address.getNeighborhood());
+            shipping.put("cityName", address.getCityName());
+            shipping.put("stateName", address.getStateName());
+            shipping.put("zipCode", address.getZipCode());
+            shipping.put("countryName", address.getCountryName());
+            model.put("shipping", shipping);
         }
+        return model;
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount == null ? "0,00" : amount.setScale(2, RoundingMode.HALF_UP).toPlainString().replace('.', ',');
     }
 }
@@ -3,69 +3,137 @@ package br.com.ecommerce.meninadourada.service;
 
 
 import br.com.ecommerce.meninadourada.dto.EmailSubscriptionRequestDTO;
+import br.com.ecommerce.meninadourada.dto.SubscriptionPageDTO;
 import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
 import br.com.ecommerce.meninadourada.model.EmailSubscription;
 import br.com.ecommerce.meninadourada.repository.EmailSubscriptionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DuplicateKeyException; // Importe para lidar com e-mail duplicado
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.bson.types.ObjectId; // Para gerar IDs se necessário, embora o MongoRepository faça isso
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.stream.Stream;
 @Service
 public class EmailSubscriptionService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailSubscriptionService.class);
+    private static final int MAX_PAGE_SIZE = 200;
 
     private final EmailSubscriptionRepository emailSubscriptionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final NewsletterSubscriberFilter subscriberFilter;
+    private final UnsubscribeTokenService unsubscribeTokenService;
 
     @Autowired
-    public EmailSubscriptionService(EmailSubscriptionRepository emailSubscriptionRepository) {
+    public EmailSubscriptionService(EmailSubscriptionRepository emailSubscriptionRepository, MongoTemplate mongoTemplate,
+                                    NewsletterSubscriberFilter subscriberFilter, UnsubscribeTokenService unsubscribeTokenService) {
         this.emailSubscriptionRepository = emailSubscriptionRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.subscriberFilter = subscriberFilter;
+        this.unsubscribeTokenService = unsubscribeTokenService;
+    }
+
+    /**
+     * Normaliza o e-mail para comparação e armazenamento (sem espaços, em minúsculas).
+     */
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
      * Cadastra um novo e-mail para a newsletter.
-     * Verifica se o e-mail já existe para evitar duplicatas.
+     * O cadastro é um único insert: duplicatas são barradas pelo índice único de email. Antes
+     * dele, o filtro em memória rejeita sem ir ao banco os e-mails confirmados recentemente
+     * (cliques repetidos, bots).
      *
      * @param dto O DTO contendo o e-mail a ser cadastrado.
      * @return A inscrição de e-mail salva.
      * @throws IllegalArgumentException Se o e-mail já estiver cadastrado.
      */
     public EmailSubscription subscribeEmail(EmailSubscriptionRequestDTO dto) {
-        logger.info("Tentativa de inscrição de e-mail: {}", dto.getEmail());
+        String email = normalizeEmail(dto.getEmail());
+        logger.info("Tentativa de inscrição de e-mail: {}", email);
 
-        // Verifica se o e-mail já existe
-        Optional<EmailSubscription> existingSubscription = emailSubscriptionRepository.findByEmail(dto.getEmail());
-        if (existingSubscription.isPresent()) {
-            logger.warn("E-mail {} já cadastrado para newsletter.", dto.getEmail());
+        if (subscriberFilter.isKnownSubscriber(email)) {
+            logger.warn("E-mail {} já cadastrado para newsletter.", email);
             throw new IllegalArgumentException("E-mail já cadastrado para a newsletter.");
         }
 
         EmailSubscription subscription = new EmailSubscription();
         subscription.setId(new ObjectId().toHexString()); // Gera um ID único
-        subscription.setEmail(dto.getEmail());
+        subscription.setEmail(email);
         subscription.setSubscribedAt(LocalDateTime.now()); // Garante a data atual
 
         try {
-            EmailSubscription savedSubscription = emailSubscriptionRepository.save(subscription);
+            // insert (e não save): com o ID já definido, save faria um upsert por _id
+            EmailSubscription savedSubscription = emailSubscriptionRepository.insert(subscription);
+            subscriberFilter.markSubscribed(email);
             logger.info("E-mail {} cadastrado na newsletter com sucesso. ID: {}", savedSubscription.getEmail(), savedSubscription.getId());
             return savedSubscription;
         } catch (DuplicateKeyException e) {
-            // Caso raro de corrida onde findByEmail não pegou, mas o índice único do MongoDB sim.
-            logger.warn("E-mail {} já cadastrado devido a DuplicateKeyException.", dto.getEmail());
+            // Duplicata que o filtro não conhecia: o índice único barrou
+            subscriberFilter.markSubscribed(email);
+            logger.warn("E-mail {} já cadastrado devido a DuplicateKeyException.", email);
             throw new IllegalArgumentException("E-mail já cadastrado para a newsletter.");
         } catch (Exception e) {
-            logger.error("Erro ao cadastrar e-mail {} na newsletter: {}", dto.getEmail(), e.getMessage(), e);
+            logger.error("Erro ao cadastrar e-mail {} na newsletter: {}", email, e.getMessage(), e);
             throw new RuntimeException("Falha ao cadastrar e-mail na newsletter: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Normaliza os e-mails das inscrições gravadas antes da normalização (com maiúsculas ou
+     * espaços), para que o índice único também barre "Fulano@x.com" quando "fulano@x.com" se
+     * inscrever. Se a versão normalizada já existir, a inscrição antiga é removida (é o mesmo
+     * inscrito). Roda na inicialização; depois da primeira execução não encontra mais documentos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void normalizeLegacyEmails() {
+        Query query = new Query(Criteria.where("email").regex("[A-Z]|^\\s|\\s$"));
+        query.fields().include("email");
+        long normalized = 0;
+        long merged = 0;
+        try (Stream<EmailSubscription> stream = mongoTemplate.stream(query, EmailSubscription.class)) {
+            for (EmailSubscription subscription : (Iterable<EmailSubscription>) stream::iterator) {
+                Query byId = new Query(Criteria.where("_id").is(subscription.getId()));
+                try {
+                    mongoTemplate.updateFirst(byId, new Update().set("email", normalizeEmail(subscription.getEmail())), EmailSubscription.class);
+                    normalized++;
+                } catch (DuplicateKeyException e) {
+                    mongoTemplate.remove(byId, EmailSubscription.class);
+                    merged++;
+                }
+            }
+        } catch (Exception e) {
+            // Sem a migração as inscrições continuam funcionando; só as antigas seguem sem normalizar
+            logger.error("Falha ao normalizar os e-mails antigos da newsletter: {}", e.getMessage(), e);
+        }
+        if (normalized > 0 || merged > 0) {
+            logger.info("E-mails antigos da newsletter normalizados: {} atualizado(s), {} duplicado(s) removido(s).", normalized, merged);
+        }
+    }
+
     /**
      * Busca uma inscrição de e-mail pelo seu ID.
      * @param id O ID da inscrição.
@@ -82,12 +150,98 @@ public class EmailSubscriptionService {
     }
 
     /**
-     * Lista todas as inscrições de e-mail.
-     * @return Uma lista de todas as inscrições.
+     * Lista as inscrições de e-mail, das mais recentes para as mais antigas, com paginação por cursor.
+     * Cada página é uma leitura de intervalo no índice (subscribedAt desc, _id desc).
+     *
+     * @param cursor O nextCursor retornado pela página anterior, ou null para a primeira página.
+     * @param size O tamanho da página (máximo 200).
+     * @return A página de inscrições e o cursor da próxima página.
+     * @throws IllegalArgumentException Se o cursor for inválido.
      */
-    public List<EmailSubscription> getAllSubscriptions() {
-        logger.info("Listando todas as inscrições de e-mail.");
-        return emailSubscriptionRepository.findAll();
+    public SubscriptionPageDTO getSubscriptionsPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        logger.info("Listando inscrições de e-mail (cursor: {}, tamanho: {}).", cursor, pageSize);
+
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.DESC, "subscribedAt").and(Sort.by(Sort.Direction.DESC, "_id")))
+                .limit(pageSize + 1);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            LocalDateTime cursorDate = LocalDateTime.parse(position[0]);
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("subscribedAt").lt(cursorDate),
+                    Criteria.where("subscribedAt").is(cursorDate).and("_id").lt(position[1])));
+        }
+
+        List<EmailSubscription> subscriptions = mongoTemplate.find(query, EmailSubscription.class);
+        String nextCursor = null;
+        if (subscriptions.size() > pageSize) {
+            subscriptions = subscriptions.subList(0, pageSize);
+            EmailSubscription last = subscriptions.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getSubscribedAt(), last.getId());
+        }
+        return new SubscriptionPageDTO(subscriptions, nextCursor);
+    }
+
+    /**
+     * Exporta todas as inscrições em CSV (id,email,subscribedAt), das mais antigas para as mais
+     * recentes, lendo-as por um cursor do Mongo e escrevendo direto na saída: a memória usada
+     * não depende do tamanho da lista.
+     *
+     * @param output A saída do CSV (não é fechada).
+     * @return O número de inscrições exportadas.
+     * @throws IOException Se a escrita falhar (ex.: o cliente desconectou).
+     */
+    public long exportSubscriptionsCsv(OutputStream output) throws IOException {
+        logger.info("Exportando inscrições de e-mail em CSV.");
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "subscribedAt").and(Sort.by(Sort.Direction.ASC, "_id")));
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("id,email,subscribedAt\n");
+        try (Stream<EmailSubscription> stream = mongoTemplate.stream(query, EmailSubscription.class)) {
+            for (EmailSubscription subscription : (Iterable<EmailSubscription>) stream::iterator) {
+                writer.write(subscription.getId());
+                writer.write(',');
+                writer.write(csvValue(subscription.getEmail()));
+                writer.write(',');
+                writer.write(subscription.getSubscribedAt() != null ? subscription.getSubscribedAt().toString() : "");
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        logger.info("{} inscrição(ões) de e-mail exportada(s).", count);
+        return count;
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private String encodeCursor(LocalDateTime subscribedAt, String id) {
+        String raw = subscribedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = raw.split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            LocalDateTime.parse(position[0]); // valida o formato
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
     }
 
     /**
@@ -97,12 +251,36 @@ public class EmailSubscriptionService {
      */
     public void unsubscribeEmail(String id) {
         logger.info("Iniciando exclusão de inscrição de e-mail com ID: {}", id);
-        EmailSubscription subscriptionToDelete = emailSubscriptionRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.warn("Tentativa de deletar inscrição de e-mail inexistente. ID: {}", id);
-                    return new ResourceNotFoundException("Inscrição de e-mail não encontrada com ID: " + id);
-                });
-        emailSubscriptionRepository.delete(subscriptionToDelete);
+        // findAndRemove: uma única operação, que devolve o e-mail removido para atualizar o filtro
+        EmailSubscription removed = mongoTemplate.findAndRemove(new Query(Criteria.where("_id").is(id)), EmailSubscription.class);
+        if (removed == null) {
+            logger.warn("Tentativa de deletar inscrição de e-mail inexistente. ID: {}", id);
+            throw new ResourceNotFoundException("Inscrição de e-mail não encontrada com ID: " + id);
+        }
+        if (removed.getEmail() != null) {
+            subscriberFilter.markUnsubscribed(normalizeEmail(removed.getEmail()));
+        }
         logger.info("Inscrição de e-mail com ID {} deletada com sucesso.", id);
     }
+
+    /**
+     * Cancela a inscrição identificada por um token de descadastro (link do e-mail).
+     * O token é verificado em memória e a remoção é um único delete por e-mail e ID: um token
+     * antigo não remove uma inscrição refeita depois com o mesmo e-mail. Repetir o pedido
+     * (ex.: clique duplo) não é erro.
+     *
+     * @param token O token assinado do link de descadastro.
+     * @throws IllegalArgumentException Se o token for inválido.
+     */
+    public void unsubscribeByToken(String token) {
+        UnsubscribeTokenService.UnsubscribeToken subscription = unsubscribeTokenService.verify(token);
+        long deleted = mongoTemplate.remove(new Query(Criteria.where("email").is(normalizeEmail(subscription.getEmail()))
+                .and("_id").is(subscription.getSubscriptionId())), EmailSubscription.class).getDeletedCount();
+        subscriberFilter.markUnsubscribed(normalizeEmail(subscription.getEmail()));
+        if (deleted > 0) {
+            logger.info("Inscrição de e-mail {} cancelada pelo link de descadastro.", subscription.getSubscriptionId());
+        } else {
+            logger.info("Link de descadastro de uma inscrição já removida: {}", subscription.getSubscriptionId());
+        }
+    }
 }
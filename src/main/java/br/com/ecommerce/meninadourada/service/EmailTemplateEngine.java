@@ -0,0 +1,389 @@
+package br.com.ecommerce.meninadourada.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Templates de e-mail compilados uma única vez na inicialização.
+ * Cada template fica em classpath:templates/email/ como &lt;nome&gt;.subject.txt, &lt;nome&gt;.txt
+ * e, opcionalmente, &lt;nome&gt;.html (alternativa HTML). A sintaxe é um subconjunto do Mustache:
+ * {{campo}} (com escape de HTML no .html), {{#lista}}...{{/lista}} (repete por item, ou
+ * renderiza uma vez se o valor não for vazio) e {{^campo}}...{{/campo}} (se vazio).
+ * Campos aninhados usam ponto (ex.: {{shipping.cityName}}). O modelo é um Map de Maps.
+ * A renderização percorre os nós já compilados direto para um StringBuilder pré-dimensionado.
+ */
+@Component
+public class EmailTemplateEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateEngine.class);
+    private static final String LOCATION = "classpath:templates/email/*";
+    // Caminho de {{.}} (o próprio item da seção)
+    private static final String[] SELF = {"."};
+
+    private final Map<String, CompiledEmail> templates = new HashMap<>();
+
+    @PostConstruct
+    public void loadTemplates() throws IOException {
+        Map<String, String> sources = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            String filename = resource.getFilename();
+            if (filename == null || !resource.isReadable()) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                sources.put(filename, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        sources.keySet().stream()
+                .filter(filename -> filename.endsWith(".subject.txt"))
+                .forEach(filename -> {
+                    String name = filename.substring(0, filename.length() - ".subject.txt".length());
+                    templates.put(name, compileEmail(name, sources));
+                });
+        logger.info("{} template(s) de e-mail compilado(s): {}", templates.size(), templates.keySet());
+    }
+
+    /**
+     * Renderiza o template informado.
+     *
+     * @param name O nome do template (ex.: "order-confirmation").
+     * @param model Os valores do template.
+     * @return Assunto, texto e HTML (null se o template não tiver versão HTML).
+     * @throws IllegalArgumentException Se o template não existir.
+     */
+    public RenderedEmail render(String name, Map<String, ?> model) {
+        CompiledEmail email = templates.get(name);
+        if (email == null) {
+            throw new IllegalArgumentException("Template de e-mail não encontrado: " + name);
+        }
+        Frame root = new Frame(model, null);
+        return new RenderedEmail(
+                email.subject.render(root).trim(),
+                email.text.render(root),
+                email.html != null ? email.html.render(root) : null);
+    }
+
+    private static CompiledEmail compileEmail(String name, Map<String, String> sources) {
+        String text = sources.get(name + ".txt");
+        if (text == null) {
+            throw new IllegalStateException("Template de e-mail " + name + " sem a versão em texto (" + name + ".txt)");
+        }
+        String html = sources.get(name + ".html");
+        return new CompiledEmail(
+                Template.compile(name + ".subject.txt", sources.get(name + ".subject.txt"), false),
+                Template.compile(name + ".txt", text, false),
+                html != null ? Template.compile(name + ".html", html, true) : null);
+    }
+
+    /**
+     * Resultado da renderização de um e-mail.
+     */
+    public static final class RenderedEmail {
+        private final String subject;
+        private final String text;
+        private final String html;
+
+        public RenderedEmail(String subject, String text, String html) {
+            this.subject = subject;
+            this.text = text;
+            this.html = html;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getHtml() {
+            return html;
+        }
+    }
+
+    private static final class CompiledEmail {
+        private final Template subject;
+        private final Template text;
+        private final Template html;
+
+        private CompiledEmail(Template subject, Template text, Template html) {
+            this.subject = subject;
+            this.text = text;
+            this.html = html;
+        }
+    }
+
+    /**
+     * Template compilado: sequência de nós (texto literal, variável ou seção).
+     */
+    static final class Template {
+        private final Node[] nodes;
+        // Tamanho da última renderização, usado para pré-dimensionar o buffer
+        private volatile int lastLength;
+
+        private Template(Node[] nodes, int literalLength) {
+            this.nodes = nodes;
+            this.lastLength = literalLength;
+        }
+
+        static Template compile(String name, String source, boolean escapeHtml) {
+            Parser parser = new Parser(name, source, escapeHtml);
+            Node[] nodes = parser.parse(null);
+            return new Template(nodes, source.length());
+        }
+
+        String render(Frame frame) {
+            StringBuilder out = new StringBuilder(lastLength + 64);
+            renderNodes(nodes, frame, out);
+            lastLength = out.length();
+            return out.toString();
+        }
+    }
+
+    private static void renderNodes(Node[] nodes, Frame frame, StringBuilder out) {
+        // Despacho explícito por tipo: evita a chamada de interface megamórfica no laço principal
+        for (Node node : nodes) {
+            if (node instanceof Literal literal) {
+                out.append(literal.text);
+            } else if (node instanceof Variable variable) {
+                variable.render(frame, out);
+            } else {
+                node.render(frame, out);
+            }
+        }
+    }
+
+    private interface Node {
+        void render(Frame frame, StringBuilder out);
+    }
+
+    private static final class Literal implements Node {
+        private final String text;
+
+        private Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(Frame frame, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private static final class Variable implements Node {
+        private final String[] path;
+        private final boolean escapeHtml;
+
+        private Variable(String[] path, boolean escapeHtml) {
+            this.path = path;
+            this.escapeHtml = escapeHtml;
+        }
+
+        @Override
+        public void render(Frame frame, StringBuilder out) {
+            Object value = frame.lookup(path);
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (escapeHtml) {
+                appendEscaped(text, out);
+            } else {
+                out.append(text);
+            }
+        }
+    }
+
+    private static final class Section implements Node {
+        private final String[] path;
+        private final boolean inverted;
+        private final Node[] body;
+
+        private Section(String[] path, boolean inverted, Node[] body) {
+            this.path = path;
+            this.inverted = inverted;
+            this.body = body;
+        }
+
+        @Override
+        public void render(Frame frame, StringBuilder out) {
+            Object value = frame.lookup(path);
+            if (inverted) {
+                if (isEmpty(value)) {
+                    renderNodes(body, frame, out);
+                }
+                return;
+            }
+            if (value instanceof Collection<?> items) {
+                for (Object item : items) {
+                    renderNodes(body, new Frame(item, frame), out);
+                }
+            } else if (value instanceof Map<?, ?>) {
+                renderNodes(body, new Frame(value, frame), out);
+            } else if (!isEmpty(value)) {
+                renderNodes(body, frame, out);
+            }
+        }
+    }
+
+    /**
+     * Contexto de renderização: o valor atual e o contexto externo (para campos fora do item).
+     */
+    private static final class Frame {
+        private final Object value;
+        private final Frame parent;
+
+        private Frame(Object value, Frame parent) {
+            this.value = value;
+            this.parent = parent;
+        }
+
+        private Object lookup(String[] path) {
+            if (path == SELF) {
+                return value;
+            }
+            for (Frame frame = this; frame != null; frame = frame.parent) {
+                if (frame.value instanceof Map<?, ?> map && map.containsKey(path[0])) {
+                    Object current = map.get(path[0]);
+                    for (int i = 1; i < path.length && current != null; i++) {
+                        current = current instanceof Map<?, ?> nested ? nested.get(path[i]) : null;
+                    }
+                    return current;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value == null
+                || Boolean.FALSE.equals(value)
+                || (value instanceof CharSequence text && text.isEmpty())
+                || (value instanceof Collection<?> items && items.isEmpty());
+    }
+
+    private static void appendEscaped(String text, StringBuilder out) {
+        // Copia os trechos sem caracteres especiais de uma vez (o caso comum é não ter nenhum)
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.append(text, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, text.length());
+    }
+
+    private static final class Parser {
+        private final String name;
+        private final String source;
+        private final boolean escapeHtml;
+        private int position;
+
+        private Parser(String name, String source, boolean escapeHtml) {
+            this.name = name;
+            this.source = source;
+            this.escapeHtml = escapeHtml;
+        }
+
+        /**
+         * Lê nós até o fim do template ou até o fechamento da seção informada.
+         */
+        private Node[] parse(String closingTag) {
+            List<Node> nodes = new ArrayList<>();
+            while (position < source.length()) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) {
+                    nodes.add(new Literal(source.substring(position)));
+                    position = source.length();
+                    break;
+                }
+                if (open > position) {
+                    nodes.add(new Literal(source.substring(position, open)));
+                }
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw error("tag sem fechamento '}}'", open);
+                }
+                String tag = source.substring(open + 2, close).trim();
+                position = close + 2;
+                if (tag.isEmpty()) {
+                    throw error("tag vazia", open);
+                }
+                char kind = tag.charAt(0);
+                if (kind == '/') {
+                    String tagName = tag.substring(1).trim();
+                    if (!tagName.equals(closingTag)) {
+                        throw error("fechamento inesperado {{/" + tagName + "}}", open);
+                    }
+                    skipStandaloneNewline(open);
+                    return mergeLiterals(nodes);
+                }
+                if (kind == '#' || kind == '^') {
+                    String tagName = tag.substring(1).trim();
+                    skipStandaloneNewline(open);
+                    Node[] body = parse(tagName);
+                    nodes.add(new Section(path(tagName), kind == '^', body));
+                } else {
+                    nodes.add(new Variable(path(tag), escapeHtml));
+                }
+            }
+            if (closingTag != null) {
+                throw error("seção {{#" + closingTag + "}} sem fechamento", source.length());
+            }
+            return mergeLiterals(nodes);
+        }
+
+        /**
+         * Uma tag de seção sozinha na linha não gera linha em branco no texto.
+         */
+        private void skipStandaloneNewline(int tagStart) {
+            boolean lineStart = tagStart == 0 || source.charAt(tagStart - 1) == '\n';
+            if (lineStart && position < source.length() && source.charAt(position) == '\n') {
+                position++;
+            }
+        }
+
+        private static String[] path(String tagName) {
+            return tagName.equals(".") ? SELF : tagName.split("\\.");
+        }
+
+        private Node[] mergeLiterals(List<Node> nodes) {
+            List<Node> merged = new ArrayList<>(nodes.size());
+            for (Node node : nodes) {
+                if (node instanceof Literal literal && !merged.isEmpty() && merged.get(merged.size() - 1) instanceof Literal previous) {
+                    merged.set(merged.size() - 1, new Literal(previous.text + literal.text));
+                } else {
+                    merged.add(node);
+                }
+            }
+            return merged.toArray(new Node[0]);
+        }
+
+        private IllegalStateException error(String message, int at) {
+            return new IllegalStateException("Template de e-mail " + name + " inválido na posição " + at + ": " + message);
+        }
+    }
+}
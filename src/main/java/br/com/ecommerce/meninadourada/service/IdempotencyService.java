@@ -0,0 +1,272 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.exception.IdempotencyConflictException;
+import br.com.ecommerce.meninadourada.model.IdempotencyRecord;
+import br.com.ecommerce.meninadourada.model.IdempotencyStatus;
+import br.com.ecommerce.meninadourada.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.UpdateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Store de chaves de idempotência (header Idempotency-Key).
+ * Um mapa em memória atende as repetições e faz requisições duplicadas concorrentes
+ * aguardarem a primeira em andamento; a coleção idempotency_keys (com TTL) garante o
+ * mesmo comportamento entre instâncias e após reinícios.
+ * A requisição em andamento tem uma concessão (lease) no Mongo: se a instância que a executava
+ * cair, a chave não fica travada até o TTL; a próxima repetição após o vencimento assume a
+ * chave com um update condicional e executa a operação.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate; // Updates condicionais da concessão
+
+    // Entradas locais: requisições em andamento e respostas recentes
+    private final Map<String, LocalEntry> localEntries = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.local-ttl-seconds:600}")
+    private long localTtlSeconds;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.poll-interval-ms:250}")
+    private long pollIntervalMs;
+
+    // Deve cobrir a duração máxima da operação (timeouts e retries do Mercado Pago)
+    @Value("${idempotency.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+                              MongoTemplate mongoTemplate) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Executa a ação uma única vez por chave e devolve a mesma resposta para as repetições.
+     *
+     * @param scope O escopo da operação (ex.: "create-preference").
+     * @param key A chave informada pelo cliente.
+     * @param request O corpo da requisição (usado para detectar reuso da chave com outro payload).
+     * @param responseType A classe da resposta.
+     * @param action A operação a ser executada na primeira requisição.
+     * @return A resposta da primeira requisição com esta chave.
+     * @throws IdempotencyConflictException Se a chave foi usada com outro payload ou a requisição original não terminou a tempo.
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+
+        LocalEntry newEntry = new LocalEntry(requestHash);
+        LocalEntry existing = localEntries.putIfAbsent(id, newEntry);
+        if (existing != null) {
+            logger.info("Idempotency-Key {} repetida; aguardando/reutilizando a resposta original.", id);
+            checkSameRequest(id, existing.requestHash, requestHash);
+            return deserialize(await(id, existing.future), responseType);
+        }
+
+        try {
+            String body = executeOwned(id, requestHash, action);
+            newEntry.complete(body);
+            return deserialize(body, responseType);
+        } catch (RuntimeException e) {
+            // Falhas não são memorizadas: o cliente pode tentar novamente com a mesma chave
+            localEntries.remove(id, newEntry);
+            newEntry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private <T> String executeOwned(String id, String requestHash, Supplier<T> action) {
+        if (idempotencyRecordRepository.findById(id).isEmpty()) {
+            LocalDateTime lockedUntil = newLease();
+            try {
+                idempotencyRecordRepository.insert(new IdempotencyRecord(id, requestHash, IdempotencyStatus.IN_PROGRESS,
+                        null, lockedUntil, LocalDateTime.now()));
+                return runOwned(id, lockedUntil, action);
+            } catch (DuplicateKeyException e) {
+                // Outra instância acabou de receber a mesma chave
+                logger.debug("Idempotency-Key {} registrada por outra instância.", id);
+            }
+        }
+        return pollUntilCompleted(id, requestHash, action);
+    }
+
+    private <T> String runOwned(String id, LocalDateTime lockedUntil, Supplier<T> action) {
+        String body;
+        try {
+            body = serialize(action.get());
+        } catch (RuntimeException e) {
+            // Só remove se a concessão ainda for desta requisição
+            mongoTemplate.remove(owned(id, lockedUntil), IdempotencyRecord.class);
+            throw e;
+        }
+        UpdateResult result = mongoTemplate.updateFirst(owned(id, lockedUntil), new Update()
+                .set("status", IdempotencyStatus.COMPLETED)
+                .set("responseBody", body)
+                .unset("lockedUntil"), IdempotencyRecord.class);
+        if (result.getMatchedCount() == 0) {
+            logger.warn("Concessão da Idempotency-Key {} venceu antes do fim da operação; a resposta não foi gravada.", id);
+        }
+        return body;
+    }
+
+    private <T> String pollUntilCompleted(String id, String requestHash, Supplier<T> action) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        while (true) {
+            Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(id);
+            if (stored.isEmpty()) {
+                throw new IdempotencyConflictException("A requisição original com esta Idempotency-Key falhou. Tente novamente.");
+            }
+            checkSameRequest(id, stored.get().getRequestHash(), requestHash);
+            if (stored.get().getStatus() == IdempotencyStatus.COMPLETED) {
+                return stored.get().getResponseBody();
+            }
+            LocalDateTime lockedUntil = takeOverIfExpired(id);
+            if (lockedUntil != null) {
+                logger.warn("Idempotency-Key {} estava em andamento com a concessão vencida; assumindo a execução.", id);
+                return runOwned(id, lockedUntil, action);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                break;
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IdempotencyConflictException("A requisição original com esta Idempotency-Key ainda está em processamento.");
+    }
+
+    /**
+     * Assume um registro IN_PROGRESS cuja concessão venceu (instância dona caiu ou travou).
+     * O update é condicional: entre várias repetições concorrentes, só uma assume.
+     *
+     * @return O fim da nova concessão, ou null se o registro não estava vencido.
+     */
+    private LocalDateTime takeOverIfExpired(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        Query expired = new Query(Criteria.where("_id").is(id).and("status").is(IdempotencyStatus.IN_PROGRESS)
+                .orOperator(Criteria.where("lockedUntil").lt(now), Criteria.where("lockedUntil").exists(false)));
+        LocalDateTime lockedUntil = newLease();
+        UpdateResult result = mongoTemplate.updateFirst(expired, new Update().set("lockedUntil", lockedUntil), IdempotencyRecord.class);
+        return result.getModifiedCount() > 0 ? lockedUntil : null;
+    }
+
+    private Query owned(String id, LocalDateTime lockedUntil) {
+        return new Query(Criteria.where("_id").is(id)
+                .and("status").is(IdempotencyStatus.IN_PROGRESS)
+                .and("lockedUntil").is(lockedUntil));
+    }
+
+    private LocalDateTime newLease() {
+        // Truncado em milissegundos (precisão das datas no Mongo), para a comparação exata em owned()
+        return LocalDateTime.now().plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private String await(String id, CompletableFuture<String> future) {
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A requisição original com esta Idempotency-Key ainda está em processamento.");
+        } catch (ExecutionException e) {
+            logger.warn("Requisição original da Idempotency-Key {} falhou: {}", id, e.getCause().getMessage());
+            throw new IdempotencyConflictException("A requisição original com esta Idempotency-Key falhou. Tente novamente.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Requisição interrompida enquanto aguardava a Idempotency-Key.");
+        }
+    }
+
+    private void checkSameRequest(String id, String storedHash, String requestHash) {
+        if (storedHash != null && !storedHash.equals(requestHash)) {
+            logger.warn("Idempotency-Key {} reutilizada com outro payload.", id);
+            throw new IdempotencyConflictException("Idempotency-Key já utilizada com outro conteúdo de requisição.");
+        }
+    }
+
+    /**
+     * Remove da memória as respostas mais antigas que o TTL local (o Mongo continua com elas).
+     */
+    @Scheduled(fixedDelayString = "${idempotency.eviction-interval-ms:60000}")
+    public void evictExpiredLocalEntries() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(localTtlSeconds);
+        localEntries.values().removeIf(entry -> entry.completedAtMillis > 0 && entry.completedAtMillis < cutoff);
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(serialize(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Falha ao serializar resposta idempotente: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> T deserialize(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Falha ao ler resposta idempotente: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class LocalEntry {
+        private final String requestHash;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private volatile long completedAtMillis;
+
+        private LocalEntry(String requestHash) {
+            this.requestHash = requestHash;
+        }
+
+        private void complete(String body) {
+            completedAtMillis = System.currentTimeMillis();
+            future.complete(body);
+        }
+    }
+}
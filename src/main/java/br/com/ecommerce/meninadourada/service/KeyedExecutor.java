@@ -0,0 +1,80 @@
+package br.com.ecommerce.meninadourada.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Executor com "faixas" (lanes) de uma única thread, escolhidas pelo hash de uma chave.
+ * Tarefas com a mesma chave (ex.: externalReference do pedido) rodam estritamente em ordem,
+ * sem locks, enquanto chaves diferentes são processadas em paralelo nas demais faixas.
+ */
+@Component
+public class KeyedExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedExecutor.class);
+
+    // 0 = uma faixa por núcleo disponível
+    @Value("${orders.update-lanes:0}")
+    private int configuredLanes;
+
+    private ExecutorService[] lanes;
+
+    @PostConstruct
+    void startLanes() {
+        int count = configuredLanes > 0 ? configuredLanes : Runtime.getRuntime().availableProcessors();
+        lanes = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            String threadName = "order-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        logger.info("KeyedExecutor iniciado com {} faixas.", count);
+    }
+
+    @PreDestroy
+    void stopLanes() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Executa a tarefa na faixa da chave e aguarda o resultado.
+     * Exceções da tarefa são relançadas como foram lançadas.
+     *
+     * @param key A chave de serialização (tarefas com a mesma chave nunca rodam em paralelo).
+     * @param task A tarefa a ser executada.
+     * @return O resultado da tarefa.
+     */
+    public <T> T executeAndWait(String key, Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, laneFor(key)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private ExecutorService laneFor(String key) {
+        return lanes[Math.floorMod(key == null ? 0 : key.hashCode(), lanes.length)];
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.ecommerce.meninadourada.service;
+
+import com.mercadopago.client.merchantorder.MerchantOrderClient;
+import com.mercadopago.client.payment.PaymentClient;
+import com.mercadopago.client.preference.PreferenceClient;
+import com.mercadopago.core.MPRequestOptions;
+import com.mercadopago.net.MPHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Fornece os clients do SDK do Mercado Pago, todos sobre o mesmo transporte HTTP com pool,
+ * e as opções de cada requisição (access token, timeouts e headers como X-Idempotency-Key).
+ * O access token vai em cada requisição, então nenhuma chamada altera o estado global
+ * do SDK (MercadoPagoConfig).
+ */
+@Component
+public class MercadoPagoClientFactory {
+
+    private final PaymentClient paymentClient;
+    private final MerchantOrderClient merchantOrderClient;
+    private final PreferenceClient preferenceClient;
+
+    @Value("${mercadopago.access-token}")
+    private String accessToken;
+
+    @Value("${mercadopago.http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${mercadopago.http.connection-request-timeout-ms:1000}")
+    private int connectionRequestTimeoutMs;
+
+    @Value("${mercadopago.http.socket-timeout-ms:10000}")
+    private int socketTimeoutMs;
+
+    @Autowired
+    public MercadoPagoClientFactory(MPHttpClient mercadoPagoHttpClient) {
+        this.paymentClient = new PaymentClient(mercadoPagoHttpClient);
+        this.merchantOrderClient = new MerchantOrderClient(mercadoPagoHttpClient);
+        this.preferenceClient = new PreferenceClient(mercadoPagoHttpClient);
+    }
+
+    public PaymentClient paymentClient() {
+        return paymentClient;
+    }
+
+    public MerchantOrderClient merchantOrderClient() {
+        return merchantOrderClient;
+    }
+
+    public PreferenceClient preferenceClient() {
+        return preferenceClient;
+    }
+
+    /**
+     * Cria as opções de uma requisição.
+     *
+     * @param customHeaders Headers extras (ex.: X-Idempotency-Key).
+     * @return As opções com access token e timeouts configurados.
+     */
+    public MPRequestOptions requestOptions(Map<String, String> customHeaders) {
+        return MPRequestOptions.builder()
+                .accessToken(accessToken)
+                .connectionTimeout(connectTimeoutMs)
+                .connectionRequestTimeout(connectionRequestTimeoutMs)
+                .socketTimeout(socketTimeoutMs)
+                .customHeaders(customHeaders)
+                .build();
+    }
+}
@@ -0,0 +1,221 @@
+package br.com.ecommerce.meninadourada.service;
+
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.resources.merchantorder.MerchantOrder;
+import com.mercadopago.resources.payment.Payment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Cache das consultas de Payment e MerchantOrder no Mercado Pago.
+ * Consultas concorrentes ao mesmo ID compartilham uma única chamada em andamento. Depois que a
+ * chamada termina, só estados terminais (ex.: approved, rejected) ficam em cache; estados
+ * intermediários (ex.: pending) não são guardados, então nunca são servidos desatualizados.
+ * get* informa se o valor acabou de ser carregado por esta chamada; o processamento de webhooks
+ * usa esse valor diretamente e só chama refreshPayment/refreshMerchantOrder (que sempre buscam
+ * na API) quando o valor veio do cache, fazendo uma única busca por notificação.
+ */
+@Component
+public class MercadoPagoLookupCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoLookupCache.class);
+
+    private static final Set<String> TERMINAL_PAYMENT_STATUSES = Set.of("approved", "rejected", "cancelled", "refunded", "charged_back");
+    private static final Set<String> TERMINAL_MERCHANT_ORDER_STATUSES = Set.of("closed", "expired");
+
+    private final Map<Long, CacheEntry<Payment>> payments = new ConcurrentHashMap<>();
+    private final Map<Long, CacheEntry<MerchantOrder>> merchantOrders = new ConcurrentHashMap<>();
+
+    @Value("${mercadopago.cache.terminal-ttl-seconds:300}")
+    private long terminalTtlSeconds;
+
+    @Value("${mercadopago.cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Função de carga que chama a API do Mercado Pago.
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws MPException, MPApiException;
+    }
+
+    /**
+     * Resultado de uma consulta: o valor e se ele foi carregado da API por esta chamada.
+     * Quem aguardou uma carga iniciada por outra chamada recebe loaded = false, pois a busca
+     * pode ter começado antes da sua.
+     */
+    public static final class Lookup<V> {
+        private final V value;
+        private final boolean loaded;
+
+        private Lookup(V value, boolean loaded) {
+            this.value = value;
+            this.loaded = loaded;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public boolean isLoaded() {
+            return loaded;
+        }
+    }
+
+    /**
+     * Retorna o Payment do cache ou o carrega (uma única vez, mesmo com chamadas concorrentes).
+     *
+     * @param paymentId O ID do pagamento no Mercado Pago.
+     * @param loader A chamada à API usada em caso de ausência no cache.
+     * @return O Payment e se ele foi carregado agora.
+     * @throws MPException Se o SDK falhar.
+     * @throws MPApiException Se a API responder com erro.
+     */
+    public Lookup<Payment> getPayment(Long paymentId, Loader<Payment> loader) throws MPException, MPApiException {
+        return get(payments, paymentId, loader, this::isTerminalPayment);
+    }
+
+    /**
+     * Retorna a MerchantOrder do cache ou a carrega (uma única vez, mesmo com chamadas concorrentes).
+     *
+     * @param merchantOrderId O ID da merchant order no Mercado Pago.
+     * @param loader A chamada à API usada em caso de ausência no cache.
+     * @return A MerchantOrder e se ela foi carregada agora.
+     * @throws MPException Se o SDK falhar.
+     * @throws MPApiException Se a API responder com erro.
+     */
+    public Lookup<MerchantOrder> getMerchantOrder(Long merchantOrderId, Loader<MerchantOrder> loader) throws MPException, MPApiException {
+        return get(merchantOrders, merchantOrderId, loader, this::isTerminalMerchantOrder);
+    }
+
+    /**
+     * Busca o Payment na API (sem usar o valor em cache) e atualiza o cache com o resultado.
+     *
+     * @param paymentId O ID do pagamento no Mercado Pago.
+     * @param loader A chamada à API.
+     * @return O Payment atual.
+     * @throws MPException Se o SDK falhar.
+     * @throws MPApiException Se a API responder com erro.
+     */
+    public Payment refreshPayment(Long paymentId, Loader<Payment> loader) throws MPException, MPApiException {
+        return refresh(payments, paymentId, loader, this::isTerminalPayment);
+    }
+
+    /**
+     * Busca a MerchantOrder na API (sem usar o valor em cache) e atualiza o cache com o resultado.
+     *
+     * @param merchantOrderId O ID da merchant order no Mercado Pago.
+     * @param loader A chamada à API.
+     * @return A MerchantOrder atual.
+     * @throws MPException Se o SDK falhar.
+     * @throws MPApiException Se a API responder com erro.
+     */
+    public MerchantOrder refreshMerchantOrder(Long merchantOrderId, Loader<MerchantOrder> loader) throws MPException, MPApiException {
+        return refresh(merchantOrders, merchantOrderId, loader, this::isTerminalMerchantOrder);
+    }
+
+    private boolean isTerminalPayment(Payment payment) {
+        return payment.getStatus() != null && TERMINAL_PAYMENT_STATUSES.contains(payment.getStatus());
+    }
+
+    private boolean isTerminalMerchantOrder(MerchantOrder merchantOrder) {
+        return merchantOrder.getStatus() != null && TERMINAL_MERCHANT_ORDER_STATUSES.contains(merchantOrder.getStatus());
+    }
+
+    private <V> V refresh(Map<Long, CacheEntry<V>> cache, Long id, Loader<V> loader, Predicate<V> isTerminal) throws MPException, MPApiException {
+        V value = loader.load();
+        if (isTerminal.test(value)) {
+            CacheEntry<V> entry = new CacheEntry<>();
+            entry.expiresAtMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(terminalTtlSeconds);
+            entry.future.complete(value);
+            // Não substitui uma carga em andamento: quem a aguarda recebe o resultado dela
+            cache.compute(id, (key, current) -> current != null && !current.future.isDone() ? current : entry);
+        } else {
+            // Um estado terminal guardado antes (ex.: approved antes de um estorno) deixa de valer
+            cache.computeIfPresent(id, (key, current) -> current.future.isDone() ? null : current);
+        }
+        return value;
+    }
+
+    private <V> Lookup<V> get(Map<Long, CacheEntry<V>> cache, Long id, Loader<V> loader, Predicate<V> isTerminal) throws MPException, MPApiException {
+        long now = System.currentTimeMillis();
+        CacheEntry<V> fresh = new CacheEntry<>();
+        CacheEntry<V> entry = cache.compute(id, (key, current) -> current != null && !current.isExpired(now) ? current : fresh);
+
+        if (entry != fresh) {
+            return new Lookup<>(await(entry.future), false);
+        }
+
+        try {
+            V value = loader.load();
+            if (isTerminal.test(value)) {
+                entry.expiresAtMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(terminalTtlSeconds);
+            } else {
+                // Estado intermediário: só as chamadas concorrentes a esta o compartilham
+                cache.remove(id, entry);
+            }
+            entry.future.complete(value);
+            return new Lookup<>(value, true);
+        } catch (MPException | MPApiException | RuntimeException e) {
+            // Falhas não ficam em cache; quem estava aguardando recebe a mesma exceção
+            cache.remove(id, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private <V> V await(CompletableFuture<V> future) throws MPException, MPApiException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof MPException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof MPApiException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remove entradas expiradas e, se o cache ultrapassar o limite, descarta as restantes.
+     */
+    @Scheduled(fixedDelayString = "${mercadopago.cache.eviction-interval-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        payments.values().removeIf(entry -> entry.isExpired(now));
+        merchantOrders.values().removeIf(entry -> entry.isExpired(now));
+        if (payments.size() + merchantOrders.size() > maxEntries) {
+            logger.warn("Cache de consultas do Mercado Pago acima do limite ({} entradas); limpando.", payments.size() + merchantOrders.size());
+            payments.values().removeIf(entry -> entry.future.isDone());
+            merchantOrders.values().removeIf(entry -> entry.future.isDone());
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        // Long.MAX_VALUE enquanto a carga está em andamento
+        private volatile long expiresAtMillis = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+}
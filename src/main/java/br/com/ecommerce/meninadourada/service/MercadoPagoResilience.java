@@ -0,0 +1,107 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.exception.PaymentProviderUnavailableException;
+import com.mercadopago.core.MPRequestOptions;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Envolve todas as chamadas ao Mercado Pago com bulkhead, circuit breaker e retry com jitter
+ * (configurados em resilience4j.*.instances.&lt;instância&gt;); os timeouts de conexão e leitura
+ * e o access token vêm das opções de requisição do MercadoPagoClientFactory.
+ * Com o provedor lento, as chamadas excedentes falham rápido em vez de prender as threads do
+ * Tomcat. O estado de cada componente é exposto como métricas (resilience4j.* no /actuator/metrics).
+ */
+@Component
+public class MercadoPagoResilience {
+
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoResilience.class);
+
+    // Instâncias separadas: webhooks lentos não consomem a capacidade do checkout e vice-versa
+    public static final String PREFERENCE = "mercadopago-preference";
+    public static final String LOOKUP = "mercadopago-lookup";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final RetryRegistry retryRegistry;
+    private final MercadoPagoClientFactory clientFactory;
+
+    /**
+     * Chamada ao SDK do Mercado Pago.
+     */
+    @FunctionalInterface
+    public interface MercadoPagoCall<T> {
+        T call(MPRequestOptions requestOptions) throws MPException, MPApiException;
+    }
+
+    @Autowired
+    public MercadoPagoResilience(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                                 RetryRegistry retryRegistry, MercadoPagoClientFactory clientFactory) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.retryRegistry = retryRegistry;
+        this.clientFactory = clientFactory;
+    }
+
+    /**
+     * Executa a chamada protegida pelos componentes da instância informada.
+     * Cada tentativa passa pelo bulkhead e pelo circuit breaker; as esperas entre tentativas
+     * acontecem fora do bulkhead.
+     *
+     * @param instance A instância de resiliência ({@link #PREFERENCE} ou {@link #LOOKUP}).
+     * @param headers Headers extras enviados em todas as tentativas (ex.: X-Idempotency-Key).
+     * @param call A chamada ao SDK, que recebe as opções com os timeouts configurados.
+     * @return O resultado da chamada.
+     * @throws PaymentProviderUnavailableException Se o circuito estiver aberto ou o bulkhead cheio.
+     * @throws MPException Se o SDK falhar após as tentativas.
+     * @throws MPApiException Se a API responder com erro após as tentativas.
+     */
+    public <T> T execute(String instance, Map<String, String> headers, MercadoPagoCall<T> call) throws MPException, MPApiException {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(instance);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(instance);
+        Retry retry = retryRegistry.retry(instance);
+
+        MPRequestOptions requestOptions = clientFactory.requestOptions(headers);
+
+        CheckedSupplier<T> supplier = () -> call.call(requestOptions);
+        supplier = Bulkhead.decorateCheckedSupplier(bulkhead, supplier);
+        supplier = CircuitBreaker.decorateCheckedSupplier(circuitBreaker, supplier);
+        supplier = Retry.decorateCheckedSupplier(retry, supplier);
+
+        try {
+            return supplier.get();
+        } catch (CallNotPermittedException e) {
+            logger.warn("Circuit breaker {} aberto; chamada ao Mercado Pago recusada.", instance);
+            throw new PaymentProviderUnavailableException("Mercado Pago temporariamente indisponível.", e);
+        } catch (BulkheadFullException e) {
+            logger.warn("Bulkhead {} cheio; chamada ao Mercado Pago recusada.", instance);
+            throw new PaymentProviderUnavailableException("Mercado Pago sobrecarregado. Tente novamente em instantes.", e);
+        } catch (MPException | MPApiException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Falha inesperada na chamada ao Mercado Pago: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Executa a chamada sem headers extras.
+     */
+    public <T> T execute(String instance, MercadoPagoCall<T> call) throws MPException, MPApiException {
+        return execute(instance, Map.of(), call);
+    }
+}
@@ -1,6 +1,5 @@
 package br.com.ecommerce.meninadourada.service;
 
-import com.mercadopago.MercadoPagoConfig;
 import com.mercadopago.client.preference.PreferenceBackUrlsRequest;
 import com.mercadopago.client.preference.PreferenceClient;
 import com.mercadopago.client.preference.PreferenceItemRequest;
@@ -15,13 +14,15 @@ import com.mercadopago.resources.payment.Payment;
 import com.mercadopago.client.merchantorder.MerchantOrderClient;
 import com.mercadopago.resources.merchantorder.MerchantOrder;
 import com.mercadopago.resources.merchantorder.MerchantOrderPayment;
+import com.mercadopago.net.MPResultsResourcesPage;
+import com.mercadopago.net.MPSearchRequest;
 
-import br.com.ecommerce.meninadourada.dto.OrderItemDTO;
 import br.com.ecommerce.meninadourada.dto.PaymentRequestDTO;
 import br.com.ecommerce.meninadourada.dto.PreferenceResponseDTO;
 import br.com.ecommerce.meninadourada.model.Order; // Sua entidade Order
 import br.com.ecommerce.meninadourada.model.OrderStatus;
 import br.com.ecommerce.meninadourada.repository.OrderRepository;
+import br.com.ecommerce.meninadourada.exception.PaymentProviderUnavailableException;
 import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
 
 import org.slf4j.Logger;
@@ -29,10 +30,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.Optional;
@@ -52,36 +58,61 @@ import com.mercadopago.client.preference.PreferenceShipmentsRequest;
 public class MercadoPagoService {
 
     private static final Logger logger = LoggerFactory.getLogger(MercadoPagoService.class);
+    private static final DateTimeFormatter MP_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
 
-    @Value("${mercadopago.access-token}")
-    private String accessToken;
+    @Value("${mercadopago.back-urls.success:https://meninadourada.shop/checkout/success}")
+    private String successUrl;
+
+    @Value("${mercadopago.back-urls.pending:https://meninadourada.shop/checkout/failure}")
+    private String pendingUrl;
+
+    @Value("${mercadopago.back-urls.failure:https://meninadourada.shop/checkout/rejected}")
+    private String failureUrl;
+
+    @Value("${mercadopago.notification-url:https://meninadourada.shop/api/payments/webhook/mercadopago}")
+    private String notificationUrl;
 
     private final OrderRepository orderRepository;
     private final PaymentClient paymentClient;
     private final MerchantOrderClient merchantOrderClient;
-    private final EmailService emailService; // NOVO: Injete o EmailService
+    private final PreferenceClient preferenceClient;
+    private final OrderService orderService; // Aplica as mudanças de status (e o outbox) na transação do pedido
+    private final KeyedExecutor keyedExecutor; // Serializa as atualizações por pedido
+    private final MercadoPagoLookupCache lookupCache; // Evita buscas repetidas do mesmo Payment/MerchantOrder
+    private final MercadoPagoResilience resilience; // Bulkhead, circuit breaker, retry e timeouts das chamadas ao MP
+    private final PricingService pricingService; // Preços do carrinho a partir do catálogo
+    private final OrderAccessTokenService orderAccessTokenService; // Token de acompanhamento devolvido ao checkout
 
     @Autowired
-    public MercadoPagoService(OrderRepository orderRepository, EmailService emailService) { // NOVO: Adicione EmailService ao construtor
+    public MercadoPagoService(OrderRepository orderRepository, OrderService orderService, KeyedExecutor keyedExecutor,
+                              MercadoPagoLookupCache lookupCache, MercadoPagoResilience resilience,
+                              MercadoPagoClientFactory clientFactory, PricingService pricingService,
+                              OrderAccessTokenService orderAccessTokenService) {
         this.orderRepository = orderRepository;
-        this.paymentClient = new PaymentClient();
-        this.merchantOrderClient = new MerchantOrderClient();
-        this.emailService = emailService; // Atribua o EmailService
-    }
-
-    private void configureMercadoPagoSdk() {
-        if (MercadoPagoConfig.getAccessToken() == null || !MercadoPagoConfig.getAccessToken().equals(accessToken)) {
-            MercadoPagoConfig.setAccessToken(accessToken);
-            logger.info("Mercado Pago Access Token configurado no SDK.");
-        }
+        // Clients compartilhados, sobre o transporte HTTP com pool; o access token vai nas opções de cada requisição
+        this.paymentClient = clientFactory.paymentClient();
+        this.merchantOrderClient = clientFactory.merchantOrderClient();
+        this.preferenceClient = clientFactory.preferenceClient();
+        this.orderService = orderService;
+        this.keyedExecutor = keyedExecutor;
+        this.lookupCache = lookupCache;
+        this.resilience = resilience;
+        this.pricingService = pricingService;
+        this.orderAccessTokenService = orderAccessTokenService;
     }
 
     public PreferenceResponseDTO createPaymentPreference(PaymentRequestDTO dto) {
         logger.info("Starting creation of payment preference for user: {}", dto.getUserId());
-        configureMercadoPagoSdk();
+
+        // Preços e total vêm do catálogo, não do cliente (IllegalArgumentException -> 400)
+        PricingService.PricedCart cart = pricingService.priceCart(dto.getItems());
+        if (dto.getTotalAmount() != null && dto.getTotalAmount().compareTo(cart.getTotalAmount()) != 0) {
+            logger.warn("Total enviado pelo cliente ({}) difere do calculado ({}) para o usuário {}.",
+                    dto.getTotalAmount(), cart.getTotalAmount(), dto.getUserId());
+        }
 
         try {
-            List<PreferenceItemRequest> items = dto.getItems().stream()
+            List<PreferenceItemRequest> items = cart.getItems().stream()
                     .map(i -> PreferenceItemRequest.builder()
                             .id(i.getProductId())
                             .title(i.getProductName() + (i.getVariationId() != null ? " - " + i.getVariationId() : ""))
@@ -127,9 +158,9 @@ public class MercadoPagoService {
                     .build();
 
             PreferenceBackUrlsRequest backUrls = PreferenceBackUrlsRequest.builder()
-                    .success("https://meninadourada.shop/checkout/success")
-                    .pending("https://meninadourada.shop/checkout/failure")
-                    .failure("https://meninadourada.shop/checkout/rejected")
+                    .success(successUrl)
+                    .pending(pendingUrl)
+                    .failure(failureUrl)
                     .build();
 
             PreferenceRequest request = PreferenceRequest.builder()
@@ -139,10 +170,13 @@ public class MercadoPagoService {
                     .shipments(mpShipmentsRequest)
                     .backUrls(backUrls)
                     .autoReturn("all")
-                    .notificationUrl("https://meninadourada.shop/api/payments/webhook/mercadopago")
+                    .notificationUrl(notificationUrl)
                     .build();
 
-            Preference p = new PreferenceClient().create(request);
+            // A mesma chave em todas as tentativas evita preferências duplicadas quando o retry repete o POST
+            Map<String, String> idempotencyHeader = Map.of("X-Idempotency-Key", orderExternalReference);
+            Preference p = resilience.execute(MercadoPagoResilience.PREFERENCE, idempotencyHeader,
+                    options -> preferenceClient.create(request, options));
 
             if (p != null && p.getInitPoint() != null) {
                 logger.info("Payment preference created successfully. ID: {}. Checkout URL: {}", p.getId(), p.getInitPoint());
@@ -150,18 +184,11 @@ public class MercadoPagoService {
                 Order newOrder = new Order();
                 newOrder.setId(new ObjectId().toHexString());
                 newOrder.setUserId(dto.getUserId());
-                newOrder.setTotalAmount(dto.getTotalAmount());
+                newOrder.setTotalAmount(cart.getTotalAmount());
                 newOrder.setPaymentId(p.getId());
                 newOrder.setPaymentStatus("PENDING_CHECKOUT_MP");
                 newOrder.setStatus(OrderStatus.PENDING);
-                newOrder.setItems(dto.getItems().stream()
-                        .map(itemDto -> new br.com.ecommerce.meninadourada.model.OrderItem(
-                                itemDto.getProductId(),
-                                itemDto.getProductName(),
-                                itemDto.getVariationId(),
-                                itemDto.getQuantity(),
-                                itemDto.getUnitPrice()
-                        )).collect(Collectors.toList()));
+                newOrder.setItems(cart.getItems());
                 newOrder.setExternalReference(orderExternalReference);
                 newOrder.setCustomerName(dto.getCustomerName());
                 newOrder.setCustomerEmail(dto.getPayerEmail());
@@ -172,12 +199,14 @@ public class MercadoPagoService {
                 orderRepository.save(newOrder);
                 logger.info("Order saved in MongoDB with preference ID: {} and External Reference: {}", p.getId(), orderExternalReference);
 
-                return new PreferenceResponseDTO(p.getId(), p.getInitPoint());
+                return new PreferenceResponseDTO(p.getId(), p.getInitPoint(), orderAccessTokenService.createOrderToken(newOrder.getId()));
             } else {
                 logger.error("Failed to create payment preference. Null response or no init_point.");
                 throw new RuntimeException("Failed to create payment preference.");
             }
 
+        } catch (PaymentProviderUnavailableException e) {
+            throw e;
         } catch (MPApiException e) {
             int status = e.getStatusCode();
             String body = e.getApiResponse().getContent();
@@ -194,92 +223,195 @@ public class MercadoPagoService {
     /**
      * Lida com notificações do webhook do Mercado Pago.
      * Esta função é crucial para atualizar o status do pedido no seu sistema.
+     * É chamada pelos workers da WebhookInboxService; falhas são propagadas para
+     * que a notificação seja re-tentada.
+     * A atualização do pedido roda na faixa do KeyedExecutor da externalReference do pedido, então
+     * notificações do mesmo pedido são aplicadas uma de cada vez; a OrderService ainda recusa
+     * regressões de status caso um estado buscado antes seja aplicado depois de um mais novo.
+     * Cada notificação faz uma única busca na API: a consulta ao MercadoPagoLookupCache que descobre
+     * a externalReference (que não muda) já traz o estado a aplicar quando foi ela que buscou na API;
+     * se o valor veio do cache, o estado atual é buscado dentro da faixa. O estado aplicado nunca é
+     * um valor servido pelo cache.
      *
      * @param id Notification ID or payment ID.
      * @param topic Notification topic (e.g., "payment", "merchant_order").
+     * @return A referência externa do pedido e as notificações relacionadas cobertas pelo estado buscado.
+     * @throws ResourceNotFoundException Se o pedido da notificação não for encontrado.
+     * @throws RuntimeException Se a chamada à API do Mercado Pago falhar.
      */
-    @Transactional // Garante que a atualização do pedido seja atômica
-    public void handleWebhookNotification(String id, String topic) {
+    public WebhookNotificationResult handleWebhookNotification(String id, String topic) {
         logger.info("🛈 Processing MP webhook. id={}, topic={}", id, topic);
-        configureMercadoPagoSdk();
 
         try {
             if ("payment".equals(topic)) {
-                Payment payment = paymentClient.get(Long.valueOf(id));
-                logger.info("Detalhes do Payment (ID: {}): Status: {}, External Reference: {}",
-                        payment.getId(), payment.getStatus(), payment.getExternalReference());
-
-                Order order = orderRepository.findByExternalReference(payment.getExternalReference())
-                        .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado para External Reference: " + payment.getExternalReference()));
-
-                order.setPaymentStatus(payment.getStatus());
-                order.setStatus(mapMercadoPagoStatusToOrderStatus(payment.getStatus()));
-                // store the payment transaction id
-                order.setPaymentId(String.valueOf(payment.getId()));
-
-                orderRepository.save(order);
-                logger.info("Pedido {} atualizado via webhook. Novo status: {}. Status MP: {}",
-                        order.getId(), order.getStatus(), payment.getStatus());
-
-                // Send emails if the final status is PAID
-                if (order.getStatus() == OrderStatus.PAID) {
-                    emailService.sendOrderConfirmationEmailToCustomer(order);
-                    emailService.sendNewSaleNotificationToStore(order);
+                Long paymentId = Long.valueOf(id);
+                MercadoPagoLookupCache.Lookup<Payment> lookup = lookupCache.getPayment(paymentId, () -> fetchPayment(paymentId));
+                String externalReference = lookup.getValue().getExternalReference();
+
+                Payment payment = keyedExecutor.executeAndWait(externalReference, () -> {
+                    // Se a consulta acabou de buscar na API, aplica esse estado; se veio do cache, busca o atual
+                    Payment current = lookup.isLoaded()
+                            ? lookup.getValue()
+                            : loadInLane(() -> lookupCache.refreshPayment(paymentId, () -> fetchPayment(paymentId)));
+                    logger.info("Detalhes do Payment (ID: {}): Status: {}, External Reference: {}",
+                            current.getId(), current.getStatus(), current.getExternalReference());
+                    Order order = orderService.applyMercadoPagoStatus(current.getExternalReference(), current.getStatus(), String.valueOf(current.getId()));
+                    logger.info("Pedido {} atualizado via webhook. Novo status: {}. Status MP: {}",
+                            order.getId(), order.getStatus(), current.getStatus());
+                    return current;
+                });
+
+                // A merchant order do pagamento reflete o mesmo estado; sua notificação pode ser coalescida
+                Set<String> relatedKeys = new HashSet<>();
+                if (payment.getOrder() != null && payment.getOrder().getId() != null) {
+                    relatedKeys.add(WebhookNotificationResult.keyOf("merchant_order", payment.getOrder().getId()));
                 }
+                return new WebhookNotificationResult(payment.getExternalReference(), relatedKeys);
 
             } else if ("merchant_order".equals(topic)) {
-                MerchantOrder merchantOrder = merchantOrderClient.get(Long.valueOf(id));
-                logger.info("Detalhes da Merchant Order (ID: {}): Status: {}, External Reference: {}",
-                        merchantOrder.getId(), merchantOrder.getOrderStatus(), merchantOrder.getExternalReference());
-
-                Order order = orderRepository.findByExternalReference(merchantOrder.getExternalReference())
-                        .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado para Merchant Order External Reference: " + merchantOrder.getExternalReference()));
-
-                order.setPaymentStatus(merchantOrder.getOrderStatus());
-                order.setStatus(mapMercadoPagoStatusToOrderStatus(merchantOrder.getOrderStatus()));
-
-                if (merchantOrder.getPayments() != null) {
-                    merchantOrder.getPayments().stream()
+                Long merchantOrderId = Long.valueOf(id);
+                MercadoPagoLookupCache.Lookup<MerchantOrder> lookup = lookupCache.getMerchantOrder(merchantOrderId, () -> fetchMerchantOrder(merchantOrderId));
+                String externalReference = lookup.getValue().getExternalReference();
+
+                MerchantOrder merchantOrder = keyedExecutor.executeAndWait(externalReference, () -> {
+                    MerchantOrder current = lookup.isLoaded()
+                            ? lookup.getValue()
+                            : loadInLane(() -> lookupCache.refreshMerchantOrder(merchantOrderId, () -> fetchMerchantOrder(merchantOrderId)));
+                    logger.info("Detalhes da Merchant Order (ID: {}): Status: {}, External Reference: {}",
+                            current.getId(), current.getOrderStatus(), current.getExternalReference());
+
+                    String approvedPaymentId = current.getPayments() == null ? null : current.getPayments().stream()
                             .filter(p -> "approved".equalsIgnoreCase(p.getStatus()))
                             .findFirst()
-                            .ifPresent(p -> order.setPaymentId(String.valueOf(p.getId())));
-                }
+                            .map(p -> String.valueOf(p.getId()))
+                            .orElse(null);
 
-                orderRepository.save(order);
-                logger.info("Pedido {} atualizado via webhook (Merchant Order). Novo status: {}. Status MO: {}",
-                        order.getId(), order.getStatus(), merchantOrder.getOrderStatus());
+                    Order order = orderService.applyMercadoPagoStatus(current.getExternalReference(), current.getOrderStatus(), approvedPaymentId);
+                    logger.info("Pedido {} atualizado via webhook (Merchant Order). Novo status: {}. Status MO: {}",
+                            order.getId(), order.getStatus(), current.getOrderStatus());
+                    return current;
+                });
 
-                if (order.getStatus() == OrderStatus.PAID) {
-                    emailService.sendOrderConfirmationEmailToCustomer(order);
-                    emailService.sendNewSaleNotificationToStore(order);
+                // Os pagamentos da merchant order já foram considerados; suas notificações podem ser coalescidas
+                Set<String> relatedKeys = new HashSet<>();
+                if (merchantOrder.getPayments() != null) {
+                    merchantOrder.getPayments().forEach(p -> relatedKeys.add(WebhookNotificationResult.keyOf("payment", p.getId())));
                 }
+                return new WebhookNotificationResult(merchantOrder.getExternalReference(), relatedKeys);
 
             } else {
                 logger.warn("Webhook com tópico desconhecido ou não processado: {}", topic);
+                return WebhookNotificationResult.ignored();
             }
         } catch (ResourceNotFoundException e) {
             logger.error("Erro no webhook: {}", e.getMessage());
+            throw e;
         } catch (MPApiException e) {
-            logger.error("🔴 MP API error no webhook. Status: {}, Resposta: {}", e.getStatusCode(), e.getApiResponse().getContent());
+            throw webhookApiError(e);
         } catch (MPException e) {
-            logger.error("🔴 MP SDK error no webhook: {}", e.getMessage());
-        } catch (Exception e) {
-            logger.error("Erro inesperado ao processar webhook: {}", e.getMessage(), e);
+            throw webhookSdkError(e);
         }
     }
 
-    private OrderStatus mapMercadoPagoStatusToOrderStatus(String mpStatus) {
-        switch (mpStatus) {
-            case "approved":
-                return OrderStatus.PAID;
-            case "pending":
-                return OrderStatus.PENDING;
-            case "rejected":
-                return OrderStatus.REJECTED;
-            case "cancelled":
-                return OrderStatus.CANCELLED;
-            default:
-                return OrderStatus.PENDING;
+    private Payment fetchPayment(Long paymentId) throws MPException, MPApiException {
+        return resilience.execute(MercadoPagoResilience.LOOKUP, options -> paymentClient.get(paymentId, options));
+    }
+
+    private MerchantOrder fetchMerchantOrder(Long merchantOrderId) throws MPException, MPApiException {
+        return resilience.execute(MercadoPagoResilience.LOOKUP, options -> merchantOrderClient.get(merchantOrderId, options));
+    }
+
+    /**
+     * Executa uma busca na API dentro da faixa do pedido (tarefas da faixa não lançam exceções checadas).
+     */
+    private <V> V loadInLane(MercadoPagoLookupCache.Loader<V> loader) {
+        try {
+            return loader.load();
+        } catch (MPApiException e) {
+            throw webhookApiError(e);
+        } catch (MPException e) {
+            throw webhookSdkError(e);
+        }
+    }
+
+    private RuntimeException webhookApiError(MPApiException e) {
+        logger.error("🔴 MP API error no webhook. Status: {}, Resposta: {}", e.getStatusCode(), e.getApiResponse().getContent());
+        return new RuntimeException("MP API error no webhook: HTTP " + e.getStatusCode(), e);
+    }
+
+    private RuntimeException webhookSdkError(MPException e) {
+        logger.error("🔴 MP SDK error no webhook: {}", e.getMessage());
+        return new RuntimeException("MP SDK error no webhook: " + e.getMessage(), e);
+    }
+
+    /**
+     * Aplica o status de um pagamento ao pedido da sua externalReference, na faixa do
+     * KeyedExecutor do pedido. Usado pela reconciliação, com pagamentos vindos da busca:
+     * como a busca não roda na faixa, um resultado mais antigo que o estado já aplicado é
+     * descartado pela proteção contra regressão de status (OrderService.applyMercadoPagoStatus).
+     *
+     * @param payment O pagamento buscado no Mercado Pago.
+     * @return O pedido atualizado.
+     * @throws ResourceNotFoundException Se o pedido não for encontrado.
+     */
+    public Order applyPaymentStatus(Payment payment) {
+        // store the payment transaction id
+        return keyedExecutor.executeAndWait(payment.getExternalReference(), () ->
+                orderService.applyMercadoPagoStatus(payment.getExternalReference(), payment.getStatus(), String.valueOf(payment.getId())));
+    }
+
+    /**
+     * Busca uma página de pagamentos criados no intervalo informado (API de busca de pagamentos),
+     * em ordem crescente de criação. Usado pela reconciliação para verificar vários pedidos por chamada.
+     *
+     * @param begin Início do intervalo (date_created).
+     * @param end Fim do intervalo (date_created).
+     * @param offset Deslocamento da página.
+     * @param limit Tamanho da página.
+     * @return A página de resultados.
+     * @throws RuntimeException Se a chamada à API do Mercado Pago falhar.
+     */
+    public MPResultsResourcesPage<Payment> searchPaymentsCreatedBetween(OffsetDateTime begin, OffsetDateTime end, int offset, int limit) {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("sort", "date_created");
+        filters.put("criteria", "asc");
+        filters.put("range", "date_created");
+        filters.put("begin_date", MP_DATE_FORMAT.format(begin));
+        filters.put("end_date", MP_DATE_FORMAT.format(end));
+        MPSearchRequest searchRequest = MPSearchRequest.builder().offset(offset).limit(limit).filters(filters).build();
+        try {
+            return resilience.execute(MercadoPagoResilience.LOOKUP, options -> paymentClient.search(searchRequest, options));
+        } catch (MPApiException e) {
+            logger.error("🔴 MP API error na busca de pagamentos. Status: {}, Resposta: {}", e.getStatusCode(), e.getApiResponse().getContent());
+            throw new RuntimeException("MP API error na busca de pagamentos: HTTP " + e.getStatusCode(), e);
+        } catch (MPException e) {
+            logger.error("🔴 MP SDK error na busca de pagamentos: {}", e.getMessage());
+            throw new RuntimeException("MP SDK error na busca de pagamentos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Busca os pagamentos de um pedido pela sua externalReference (API de busca de pagamentos).
+     * Usado pela reconciliação para os pedidos que a busca por intervalo não conseguiu cobrir.
+     *
+     * @param externalReference A referência externa do pedido.
+     * @return A primeira página de resultados (um pedido tem poucos pagamentos).
+     * @throws RuntimeException Se a chamada à API do Mercado Pago falhar.
+     */
+    public MPResultsResourcesPage<Payment> searchPaymentsByExternalReference(String externalReference) {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("external_reference", externalReference);
+        filters.put("sort", "date_created");
+        filters.put("criteria", "desc");
+        MPSearchRequest searchRequest = MPSearchRequest.builder().offset(0).limit(100).filters(filters).build();
+        try {
+            return resilience.execute(MercadoPagoResilience.LOOKUP, options -> paymentClient.search(searchRequest, options));
+        } catch (MPApiException e) {
+            logger.error("🔴 MP API error na busca de pagamentos. Status: {}, Resposta: {}", e.getStatusCode(), e.getApiResponse().getContent());
+            throw new RuntimeException("MP API error na busca de pagamentos: HTTP " + e.getStatusCode(), e);
+        } catch (MPException e) {
+            logger.error("🔴 MP SDK error na busca de pagamentos: {}", e.getMessage());
+            throw new RuntimeException("MP SDK error na busca de pagamentos: " + e.getMessage(), e);
         }
     }
 }
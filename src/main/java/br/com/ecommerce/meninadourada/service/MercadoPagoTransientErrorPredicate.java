@@ -0,0 +1,23 @@
+package br.com.ecommerce.meninadourada.service;
+
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+
+import java.util.function.Predicate;
+
+/**
+ * Define quais falhas do Mercado Pago são transitórias: erros de rede/SDK, HTTP 429 e 5xx.
+ * Usado pelo retry (só repete falhas transitórias) e pelo circuit breaker (só elas contam
+ * como falha; um 400 ou 404 não indica que o provedor está degradado).
+ */
+public class MercadoPagoTransientErrorPredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        if (throwable instanceof MPApiException apiException) {
+            int status = apiException.getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return throwable instanceof MPException;
+    }
+}
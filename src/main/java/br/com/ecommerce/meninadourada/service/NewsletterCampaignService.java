@@ -0,0 +1,391 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
+import br.com.ecommerce.meninadourada.model.Campaign;
+import br.com.ecommerce.meninadourada.model.CampaignRecipient;
+import br.com.ecommerce.meninadourada.model.CampaignRecipientStatus;
+import br.com.ecommerce.meninadourada.model.CampaignStatus;
+import br.com.ecommerce.meninadourada.model.EmailSubscription;
+import br.com.ecommerce.meninadourada.repository.CampaignRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Envio de campanhas para os inscritos da newsletter.
+ * Os inscritos são lidos em streaming por um cursor do Mongo (em ordem de _id, só o e-mail),
+ * sem carregar a lista em memória. A mensagem é renderizada uma única vez por campanha e enviada
+ * em lotes pelo SmtpBatchSender, limitada por um token bucket ajustado à cota do provedor SMTP.
+ * Cada inscrito recebe um registro de status (newsletter_campaign_recipients) e, após cada lote,
+ * o checkpoint da campanha (lastSubscriberId) é gravado: após uma queda ou uma pausa, o envio
+ * continua de onde parou. A campanha é reservada por uma instância por vez (lockedUntil).
+ * Falhas seguidas sem avanço do checkpoint são contadas (failedAttempts); ao atingir
+ * max-attempts, a campanha vai para FAILED em vez de ser reservada de novo indefinidamente.
+ */
+@Service
+public class NewsletterCampaignService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NewsletterCampaignService.class);
+    // Marcador renderizado no lugar do link de descadastro e trocado pelo link de cada inscrito
+    private static final String UNSUBSCRIBE_URL_MARKER = "%%UNSUBSCRIBE_URL%%";
+
+    private final MongoTemplate mongoTemplate;
+    private final CampaignRepository campaignRepository;
+    private final EmailTemplateEngine templateEngine;
+    private final SmtpBatchSender smtpBatchSender;
+    private final UnsubscribeTokenService unsubscribeTokenService;
+
+    private ThreadPoolExecutor runner;
+    private TokenBucket rateLimiter;
+    private volatile boolean stopping;
+
+    @Value("${spring.mail.username}")
+    private String remetenteEmail;
+
+    @Value("${newsletter.campaign.rate-per-second:2}")
+    private double ratePerSecond;
+
+    @Value("${newsletter.campaign.burst:20}")
+    private int burst;
+
+    @Value("${newsletter.campaign.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${newsletter.campaign.lock-seconds:300}")
+    private long lockSeconds;
+
+    @Value("${newsletter.campaign.max-attempts:10}")
+    private int maxAttempts;
+
+    @Autowired
+    public NewsletterCampaignService(MongoTemplate mongoTemplate, CampaignRepository campaignRepository,
+                                     EmailTemplateEngine templateEngine, SmtpBatchSender smtpBatchSender,
+                                     UnsubscribeTokenService unsubscribeTokenService) {
+        this.mongoTemplate = mongoTemplate;
+        this.campaignRepository = campaignRepository;
+        this.templateEngine = templateEngine;
+        this.smtpBatchSender = smtpBatchSender;
+        this.unsubscribeTokenService = unsubscribeTokenService;
+    }
+
+    @PostConstruct
+    void startRunner() {
+        // Uma campanha por vez por instância; o limite de taxa vale para o nó inteiro
+        rateLimiter = new TokenBucket(ratePerSecond, burst);
+        runner = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "newsletter-campaign");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopRunner() throws InterruptedException {
+        stopping = true;
+        runner.shutdown();
+        if (!runner.awaitTermination(10, TimeUnit.SECONDS)) {
+            // A campanha em andamento é retomada do checkpoint quando a reserva expirar
+            runner.shutdownNow();
+        }
+    }
+
+    /**
+     * Cria uma campanha e a coloca na fila de envio.
+     *
+     * @param name O nome da campanha.
+     * @param templateName O template em templates/email.
+     * @param variables As variáveis do template (as mesmas para todos os inscritos).
+     * @return A campanha criada.
+     * @throws IllegalArgumentException Se o template não existir ou não puder ser renderizado.
+     */
+    public Campaign createCampaign(String name, String templateName, Map<String, String> variables) {
+        // Valida o template e as variáveis antes de gravar a campanha
+        templateEngine.render(templateName, variables);
+        Campaign campaign = new Campaign();
+        campaign.setId(new ObjectId().toHexString());
+        campaign.setName(name);
+        campaign.setTemplateName(templateName);
+        campaign.setVariables(variables);
+        Campaign saved = campaignRepository.save(campaign);
+        logger.info("Campanha {} ({}) criada com o template {}.", saved.getName(), saved.getId(), templateName);
+        return saved;
+    }
+
+    /**
+     * Busca uma campanha (com os contadores de envio).
+     *
+     * @throws ResourceNotFoundException Se a campanha não existir.
+     */
+    public Campaign getCampaign(String id) {
+        return campaignRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Campanha não encontrada com ID: " + id));
+    }
+
+    /**
+     * Pausa a campanha; o lote em andamento termina e o envio para no checkpoint.
+     */
+    public Campaign pauseCampaign(String id) {
+        return changeStatus(id, CampaignStatus.RUNNING, CampaignStatus.PAUSED);
+    }
+
+    /**
+     * Retoma uma campanha pausada a partir do checkpoint.
+     */
+    public Campaign resumeCampaign(String id) {
+        return changeStatus(id, CampaignStatus.PAUSED, CampaignStatus.RUNNING);
+    }
+
+    private Campaign changeStatus(String id, CampaignStatus from, CampaignStatus to) {
+        Campaign campaign = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(id).and("status").is(from)),
+                new Update().set("status", to),
+                FindAndModifyOptions.options().returnNew(true), Campaign.class);
+        if (campaign == null) {
+            Campaign current = getCampaign(id);
+            throw new IllegalArgumentException("Campanha " + id + " está " + current.getStatus() + ", não " + from + ".");
+        }
+        logger.info("Campanha {} alterada de {} para {}.", id, from, to);
+        return campaign;
+    }
+
+    /**
+     * Reserva uma campanha em envio (nova ou cuja reserva expirou) quando o executor está livre.
+     */
+    @Scheduled(fixedDelayString = "${newsletter.campaign.poll-interval-ms:10000}")
+    public void pollRunnableCampaigns() {
+        if (runner.getActiveCount() > 0 || !runner.getQueue().isEmpty()) {
+            return;
+        }
+        Campaign campaign = claim();
+        if (campaign == null) {
+            return;
+        }
+        try {
+            runner.execute(() -> run(campaign));
+        } catch (RejectedExecutionException e) {
+            release(campaign.getId());
+        }
+    }
+
+    private void run(Campaign campaign) {
+        logger.info("Enviando campanha {} a partir do inscrito {}.", campaign.getId(),
+                campaign.getLastSubscriberId() != null ? campaign.getLastSubscriberId() : "(início)");
+        Query subscribers = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(chunkSize);
+        if (campaign.getLastSubscriberId() != null) {
+            subscribers.addCriteria(Criteria.where("_id").gt(campaign.getLastSubscriberId()));
+        }
+        subscribers.fields().include("email");
+
+        try (Stream<EmailSubscription> stream = mongoTemplate.stream(subscribers, EmailSubscription.class)) {
+            // Renderizada uma única vez: só o destinatário e o link de descadastro mudam entre as mensagens
+            Map<String, String> variables = new HashMap<>(campaign.getVariables() != null ? campaign.getVariables() : Map.of());
+            variables.put("unsubscribeUrl", UNSUBSCRIBE_URL_MARKER);
+            EmailTemplateEngine.RenderedEmail email = templateEngine.render(campaign.getTemplateName(), variables);
+
+            Iterator<EmailSubscription> cursor = stream.iterator();
+            List<EmailSubscription> chunk = new ArrayList<>(chunkSize);
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == chunkSize || !cursor.hasNext()) {
+                    if (!sendChunk(campaign, email, chunk)) {
+                        return;
+                    }
+                    chunk.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(campaign.getId());
+            return;
+        } catch (Exception e) {
+            // Ex.: cursor perdido; a campanha continua do checkpoint na próxima reserva
+            logger.error("Falha no envio da campanha {}: {}", campaign.getId(), e.getMessage(), e);
+            recordFailure(campaign.getId(), e, new Update().unset("lockedUntil"));
+            return;
+        }
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(campaign.getId()).and("status").is(CampaignStatus.RUNNING)),
+                new Update()
+                        .set("status", CampaignStatus.COMPLETED)
+                        .set("finishedAt", LocalDateTime.now())
+                        .unset("lockedUntil"), Campaign.class);
+        logger.info("Campanha {} concluída.", campaign.getId());
+    }
+
+    /**
+     * Envia um lote e grava os status e o checkpoint.
+     *
+     * @return false se o envio da campanha deve parar (pausa, desligamento ou falha de conexão com o SMTP).
+     */
+    private boolean sendChunk(Campaign campaign, EmailTemplateEngine.RenderedEmail email, List<EmailSubscription> chunk)
+            throws InterruptedException {
+        // Inscritos já registrados (lote enviado antes de uma queda, sem checkpoint) não recebem de novo
+        Set<String> alreadyProcessed = alreadyProcessed(campaign.getId(), chunk);
+        List<EmailSubscription> recipients = new ArrayList<>(chunk.size());
+        List<MimeMessage> messages = new ArrayList<>(chunk.size());
+        List<CampaignRecipient> results = new ArrayList<>(chunk.size());
+        for (EmailSubscription subscription : chunk) {
+            if (alreadyProcessed.contains(subscription.getId())) {
+                continue;
+            }
+            try {
+                String unsubscribeUrl = unsubscribeTokenService.pageUrl(subscription.getId(), subscription.getEmail());
+                MimeMessage message = smtpBatchSender.createMessage(remetenteEmail, subscription.getEmail(), email.getSubject(),
+                        email.getText().replace(UNSUBSCRIBE_URL_MARKER, unsubscribeUrl),
+                        email.getHtml() != null ? email.getHtml().replace(UNSUBSCRIBE_URL_MARKER, unsubscribeUrl) : null);
+                // Descadastro em um clique nos clientes de e-mail (RFC 8058)
+                message.setHeader("List-Unsubscribe",
+                        "<" + unsubscribeTokenService.oneClickUrl(subscription.getId(), subscription.getEmail()) + ">");
+                message.setHeader("List-Unsubscribe-Post", "List-Unsubscribe=One-Click");
+                messages.add(message);
+                recipients.add(subscription);
+            } catch (Exception e) {
+                results.add(new CampaignRecipient(campaign.getId(), subscription.getId(), subscription.getEmail(),
+                        CampaignRecipientStatus.FAILED, e.getMessage()));
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            for (int i = 0; i < messages.size(); i++) {
+                rateLimiter.acquire();
+            }
+            List<Exception> failures = smtpBatchSender.send(messages);
+            Exception connectionFailure = null;
+            for (int i = 0; i < recipients.size(); i++) {
+                EmailSubscription subscription = recipients.get(i);
+                Exception failure = failures.get(i);
+                if (failure != null && !SmtpBatchSender.isRecipientRejection(failure)) {
+                    // Falha de conexão/autenticação: o destinatário não é registrado e recebe na nova tentativa
+                    connectionFailure = failure;
+                    continue;
+                }
+                results.add(new CampaignRecipient(campaign.getId(), subscription.getId(), subscription.getEmail(),
+                        failure == null ? CampaignRecipientStatus.SENT : CampaignRecipientStatus.FAILED,
+                        failure == null ? null : failure.getMessage()));
+            }
+            if (connectionFailure != null) {
+                // Provável indisponibilidade do SMTP: registra o que foi decidido, não avança o checkpoint
+                // e tenta de novo mais tarde (os já registrados são pulados na nova tentativa)
+                recordResults(results);
+                long sent = results.stream().filter(result -> result.getStatus() == CampaignRecipientStatus.SENT).count();
+                logger.warn("Falha de conexão SMTP no lote da campanha {}; nova tentativa na próxima reserva: {}",
+                        campaign.getId(), connectionFailure.getMessage());
+                recordFailure(campaign.getId(), connectionFailure, new Update()
+                        .inc("sentCount", sent)
+                        .inc("failedCount", results.size() - sent)
+                        .set("lockedUntil", LocalDateTime.now().plusSeconds(Math.min(lockSeconds, 60))));
+                return false;
+            }
+        }
+
+        recordResults(results);
+        long sent = results.stream().filter(result -> result.getStatus() == CampaignRecipientStatus.SENT).count();
+        // Checkpoint + renovação da reserva; só continua se a campanha ainda estiver em envio
+        Campaign updated = mongoTemplate.findAndModify(byId(campaign.getId()), new Update()
+                        .set("lastSubscriberId", chunk.get(chunk.size() - 1).getId())
+                        .inc("sentCount", sent)
+                        .inc("failedCount", results.size() - sent)
+                        .set("failedAttempts", 0)
+                        .set("lockedUntil", LocalDateTime.now().plusSeconds(lockSeconds)),
+                FindAndModifyOptions.options().returnNew(true), Campaign.class);
+        if (updated == null || updated.getStatus() != CampaignStatus.RUNNING || stopping) {
+            logger.info("Envio da campanha {} interrompido no inscrito {}.", campaign.getId(), chunk.get(chunk.size() - 1).getId());
+            release(campaign.getId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Registra uma falha da execução junto com a atualização informada. Após max-attempts falhas
+     * seguidas (ex.: template inválido ou remetente recusado pelo SMTP), a campanha vai para FAILED.
+     */
+    private void recordFailure(String campaignId, Exception e, Update update) {
+        Campaign updated = mongoTemplate.findAndModify(byId(campaignId), update
+                        .inc("failedAttempts", 1)
+                        .set("lastError", e.getMessage()),
+                FindAndModifyOptions.options().returnNew(true), Campaign.class);
+        if (updated == null || updated.getFailedAttempts() < maxAttempts) {
+            return;
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(campaignId).and("status").is(CampaignStatus.RUNNING)),
+                new Update()
+                        .set("status", CampaignStatus.FAILED)
+                        .set("finishedAt", LocalDateTime.now())
+                        .unset("lockedUntil"), Campaign.class);
+        logger.error("Campanha {} movida para FAILED após {} falhas seguidas: {}", campaignId, updated.getFailedAttempts(), e.getMessage());
+    }
+
+    private Set<String> alreadyProcessed(String campaignId, List<EmailSubscription> chunk) {
+        List<String> ids = chunk.stream().map(s -> campaignId + ":" + s.getId()).collect(Collectors.toList());
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("subscriptionId");
+        return mongoTemplate.find(query, CampaignRecipient.class).stream()
+                .map(CampaignRecipient::getSubscriptionId)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private void recordResults(List<CampaignRecipient> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CampaignRecipient.class)
+                    .insert(results)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Registros duplicados (lote re-enviado após uma queda) são ignorados
+            logger.debug("{} status de destinatário já existiam.", e.getErrors().size());
+        }
+    }
+
+    private Campaign claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("status").is(CampaignStatus.RUNNING)
+                .orOperator(Criteria.where("lockedUntil").is(null), Criteria.where("lockedUntil").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        return mongoTemplate.findAndModify(query, new Update().set("lockedUntil", now.plusSeconds(lockSeconds)),
+                FindAndModifyOptions.options().returnNew(true), Campaign.class);
+    }
+
+    private void release(String campaignId) {
+        mongoTemplate.updateFirst(byId(campaignId), new Update().unset("lockedUntil"), Campaign.class);
+    }
+
+    private Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
+    }
+}
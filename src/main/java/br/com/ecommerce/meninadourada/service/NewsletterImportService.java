@@ -0,0 +1,194 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.dto.SubscriberImportResultDTO;
+import br.com.ecommerce.meninadourada.model.EmailSubscription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Importação em massa de inscritos da newsletter (migração de listas de outros provedores).
+ * O arquivo é lido em streaming, linha a linha, em CSV (coluna "email", ou a primeira coluna se
+ * não houver cabeçalho) ou NDJSON (um objeto {"email": ...} por linha). Os e-mails são
+ * normalizados, validados e agrupados em lotes sem repetição; cada lote é gravado com um único
+ * insert em massa não ordenado, em que as duplicatas do índice único só são contadas.
+ */
+@Service
+public class NewsletterImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NewsletterImportService.class);
+
+    // Mesmo limite do EmailSubscriptionRequestDTO
+    private static final int MAX_EMAIL_LENGTH = 255;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[a-z0-9!#$%&'*+/=?^_`{|}~-]+(\\.[a-z0-9!#$%&'*+/=?^_`{|}~-]+)*@[a-z0-9]([a-z0-9-]*[a-z0-9])?(\\.[a-z0-9]([a-z0-9-]*[a-z0-9])?)+$");
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    /**
+     * Formato do arquivo importado.
+     */
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final NewsletterSubscriberFilter subscriberFilter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${newsletter.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public NewsletterImportService(MongoTemplate mongoTemplate, NewsletterSubscriberFilter subscriberFilter, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.subscriberFilter = subscriberFilter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Importa os e-mails do arquivo, lendo-o em streaming.
+     *
+     * @param input O conteúdo do arquivo (UTF-8).
+     * @param format O formato do arquivo.
+     * @return As contagens de inseridos, duplicados, inválidos e falhas.
+     * @throws IOException Se a leitura do arquivo falhar.
+     */
+    public SubscriberImportResultDTO importSubscribers(InputStream input, Format format) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        ImportCounters counters = new ImportCounters();
+        Set<String> chunk = new LinkedHashSet<>(chunkSize * 2);
+        int emailColumn = 0;
+        boolean firstLine = true;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (firstLine && format == Format.CSV) {
+                    firstLine = false;
+                    int headerColumn = headerEmailColumn(line);
+                    if (headerColumn >= 0) {
+                        emailColumn = headerColumn;
+                        continue;
+                    }
+                }
+                firstLine = false;
+
+                String email = format == Format.CSV ? csvColumn(line, emailColumn) : ndjsonEmail(line);
+                if (email == null || !isValid(email = EmailSubscriptionService.normalizeEmail(email))) {
+                    counters.invalid++;
+                } else if (subscriberFilter.isKnownSubscriber(email) || !chunk.add(email)) {
+                    counters.duplicates++;
+                } else if (chunk.size() >= chunkSize) {
+                    insertChunk(chunk, counters);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, counters);
+        }
+
+        logger.info("Importação de inscritos concluída em {} ms: {} inserido(s), {} duplicado(s), {} inválido(s), {} falha(s).",
+                System.currentTimeMillis() - startedAt, counters.inserted, counters.duplicates, counters.invalid, counters.failed);
+        return new SubscriberImportResultDTO(counters.inserted, counters.duplicates, counters.invalid, counters.failed);
+    }
+
+    private void insertChunk(Set<String> emails, ImportCounters counters) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailSubscription> subscriptions = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            subscriptions.add(new EmailSubscription(new ObjectId().toHexString(), email, now));
+        }
+        try {
+            counters.inserted += mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailSubscription.class)
+                    .insert(subscriptions)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            // Não ordenado: os demais documentos do lote são gravados mesmo com erros em alguns
+            counters.inserted += e.getResult().getInsertedCount();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() == DUPLICATE_KEY_ERROR) {
+                    counters.duplicates++;
+                } else {
+                    counters.failed++;
+                    logger.warn("Falha ao importar o e-mail da posição {} do lote: {}", error.getIndex(), error.getMessage());
+                }
+            }
+        }
+    }
+
+    private static boolean isValid(String email) {
+        return !email.isEmpty() && email.length() <= MAX_EMAIL_LENGTH && EMAIL_PATTERN.matcher(email).matches();
+    }
+
+    /**
+     * Índice da coluna de e-mail se a linha for um cabeçalho (sem nenhum '@'), ou -1.
+     */
+    private static int headerEmailColumn(String line) {
+        if (line.indexOf('@') >= 0) {
+            return -1;
+        }
+        String[] columns = line.split("[,;]", -1);
+        for (int i = 0; i < columns.length; i++) {
+            String name = unquote(columns[i]).toLowerCase();
+            if (name.equals("email") || name.equals("e-mail")) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String csvColumn(String line, int column) {
+        String[] columns = line.split("[,;]", -1);
+        return column < columns.length ? unquote(columns[column]) : null;
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private String ndjsonEmail(String line) {
+        try {
+            JsonNode email = objectMapper.readTree(line).get("email");
+            return email != null && email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static final class ImportCounters {
+        private long inserted;
+        private long duplicates;
+        private long invalid;
+        private long failed;
+    }
+}
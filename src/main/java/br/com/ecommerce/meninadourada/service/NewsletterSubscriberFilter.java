@@ -0,0 +1,66 @@
+package br.com.ecommerce.meninadourada.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pré-checagem em memória dos e-mails já inscritos na newsletter, usada antes do insert.
+ * Guarda um conjunto exato dos e-mails confirmados recentemente (inscrições e duplicatas vistas),
+ * que rejeita cliques repetidos e bots sem ir ao banco. Os demais cadastros vão direto ao insert:
+ * o índice único de email é quem barra as duplicatas.
+ */
+@Component
+public class NewsletterSubscriberFilter {
+
+    private final Map<String, Long> recentExpiresAt = new ConcurrentHashMap<>();
+
+    @Value("${newsletter.subscriber-filter.recent-ttl-seconds:600}")
+    private long recentTtlSeconds;
+
+    @Value("${newsletter.subscriber-filter.recent-max-entries:100000}")
+    private int recentMaxEntries;
+
+    /**
+     * Indica se o e-mail foi confirmado como inscrito recentemente (resposta exata, sem Mongo).
+     *
+     * @param email O e-mail normalizado.
+     */
+    public boolean isKnownSubscriber(String email) {
+        Long expiresAt = recentExpiresAt.get(email);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Registra um e-mail inscrito (ou confirmado como já existente no banco).
+     *
+     * @param email O e-mail normalizado.
+     */
+    public void markSubscribed(String email) {
+        if (recentExpiresAt.size() < recentMaxEntries) {
+            recentExpiresAt.put(email, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(recentTtlSeconds));
+        }
+    }
+
+    /**
+     * Registra o cancelamento de uma inscrição.
+     *
+     * @param email O e-mail normalizado.
+     */
+    public void markUnsubscribed(String email) {
+        recentExpiresAt.remove(email);
+    }
+
+    /**
+     * Remove do conjunto de confirmados recentes as entradas expiradas.
+     */
+    @Scheduled(fixedDelayString = "${newsletter.subscriber-filter.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        recentExpiresAt.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+}
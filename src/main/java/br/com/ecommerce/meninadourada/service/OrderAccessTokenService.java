@@ -0,0 +1,94 @@
+package br.com.ecommerce.meninadourada.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Tokens de acesso do cliente aos próprios pedidos, assinados e sem estado (SignedTokenCodec):
+ * - token do pedido: devolvido na criação da preferência, só para quem fez o checkout; dá acesso
+ *   ao stream de status daquele pedido;
+ * - token do histórico: enviado por e-mail ao endereço informado (link mágico), prova que o
+ *   cliente controla o e-mail e dá acesso à lista de pedidos dele.
+ * Cada token tem escopo e validade próprios; um não serve no lugar do outro.
+ */
+@Component
+public class OrderAccessTokenService {
+
+    private static final String ORDER_SCOPE = "order";
+    private static final String HISTORY_SCOPE = "history";
+
+    private final SignedTokenCodec codec;
+
+    @Value("${orders.access-token.order-ttl-seconds:172800}")
+    private long orderTtlSeconds;
+
+    @Value("${orders.access-token.history-ttl-seconds:86400}")
+    private long historyTtlSeconds;
+
+    @Autowired
+    public OrderAccessTokenService(@Value("${orders.access-token.secret}") String secret) {
+        this.codec = new SignedTokenCodec("orders.access-token.secret", secret);
+    }
+
+    /**
+     * Gera o token de acompanhamento de um pedido.
+     *
+     * @param orderId O ID do pedido.
+     */
+    public String createOrderToken(String orderId) {
+        return codec.encode(ORDER_SCOPE, orderId, expiresAt(orderTtlSeconds));
+    }
+
+    /**
+     * Verifica o token de acompanhamento de um pedido.
+     *
+     * @param token O token recebido.
+     * @return O ID do pedido.
+     * @throws IllegalArgumentException Se o token for inválido ou estiver expirado.
+     */
+    public String verifyOrderToken(String token) {
+        return verify(token, ORDER_SCOPE, "Token de acompanhamento do pedido inválido ou expirado.");
+    }
+
+    /**
+     * Gera o token de acesso ao histórico de pedidos de um e-mail.
+     *
+     * @param customerEmail O e-mail do cliente.
+     */
+    public String createHistoryToken(String customerEmail) {
+        return codec.encode(HISTORY_SCOPE, customerEmail, expiresAt(historyTtlSeconds));
+    }
+
+    /**
+     * Verifica o token de acesso ao histórico de pedidos.
+     *
+     * @param token O token recebido.
+     * @return O e-mail do cliente.
+     * @throws IllegalArgumentException Se o token for inválido ou estiver expirado.
+     */
+    public String verifyHistoryToken(String token) {
+        return verify(token, HISTORY_SCOPE, "Link de acesso aos pedidos inválido ou expirado.");
+    }
+
+    private String verify(String token, String scope, String invalidMessage) {
+        List<String> fields = codec.decode(token, 3, invalidMessage);
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(fields.get(2));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(invalidMessage, e);
+        }
+        if (!scope.equals(fields.get(0)) || expiresAt < Instant.now().getEpochSecond()) {
+            throw new IllegalArgumentException(invalidMessage);
+        }
+        return fields.get(1);
+    }
+
+    private static String expiresAt(long ttlSeconds) {
+        return String.valueOf(Instant.now().getEpochSecond() + ttlSeconds);
+    }
+}
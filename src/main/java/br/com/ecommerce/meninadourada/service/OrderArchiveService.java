@@ -0,0 +1,161 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.Order;
+import br.com.ecommerce.meninadourada.model.OrderStatus;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Archives old orders in terminal states into monthly collections (orders_archive_yyyy_MM),
+ * keeping the live "orders" collection and its indexes small enough to stay in memory.
+ * Also resolves lookups of archived orders for OrderService.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    static final String ARCHIVE_COLLECTION_PREFIX = "orders_archive_";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${orders.archive.min-age-days:180}")
+    private long minAgeDays;
+
+    @Value("${orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.archive.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Autowired
+    public OrderArchiveService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Scheduled archival run. Moves batches of terminal orders older than the configured age
+     * until there is nothing left or the per-run batch limit is reached.
+     */
+    @Scheduled(cron = "${orders.archive.cron:0 30 3 * * *}")
+    public void archiveOldOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+        logger.info("Starting order archival. Cutoff: {}", cutoff);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int moved = archiveBatch(cutoff);
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        logger.info("Order archival finished. {} order(s) moved to archive collections.", total);
+    }
+
+    /**
+     * Moves one batch of eligible orders. Archive writes are upserts by _id, so a batch
+     * interrupted between the copy and the delete is safely redone on the next run.
+     *
+     * @param cutoff Orders placed before this date are eligible.
+     * @return The number of orders moved.
+     */
+    int archiveBatch(LocalDateTime cutoff) {
+        List<OrderStatus> terminalStatuses = Arrays.stream(OrderStatus.values())
+                .filter(OrderStatus::isTerminal)
+                .collect(Collectors.toList());
+        Query query = new Query(Criteria.where("status").in(terminalStatuses).and("orderDate").lt(cutoff))
+                .with(Sort.by(Sort.Direction.ASC, "orderDate"))
+                .limit(batchSize);
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<Order>> byCollection = orders.stream()
+                .collect(Collectors.groupingBy(OrderArchiveService::archiveCollectionFor, LinkedHashMap::new, Collectors.toList()));
+        byCollection.forEach((collection, monthOrders) -> {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class, collection);
+            for (Order order : monthOrders) {
+                bulk.replaceOne(new Query(Criteria.where("_id").is(order.getId())), order, FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+        });
+
+        // The delete only matches the state that was copied: an order changed after the read
+        // (e.g. a refund or chargeback webhook) stays live and its stale archive copy is dropped
+        BulkOperations delete = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Order order : orders) {
+            delete.remove(new Query(Criteria.where("_id").is(order.getId())
+                    .and("status").is(order.getStatus())
+                    .and("paymentStatus").is(order.getPaymentStatus())
+                    .and("paymentId").is(order.getPaymentId())
+                    .and("orderDate").lt(cutoff)));
+        }
+        int deleted = delete.execute().getDeletedCount();
+        if (deleted < orders.size()) {
+            List<String> ids = orders.stream().map(Order::getId).collect(Collectors.toList());
+            Query stillLive = new Query(Criteria.where("_id").in(ids));
+            stillLive.fields().include("_id", "orderDate");
+            List<Order> changed = mongoTemplate.find(stillLive, Order.class);
+            for (Order order : changed) {
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(order.getId())), Order.class, archiveCollectionFor(order));
+            }
+            logger.warn("{} order(s) changed during archival and were kept live: {}", changed.size(),
+                    changed.stream().map(Order::getId).collect(Collectors.toList()));
+        }
+        logger.info("Archived {} order(s) into {}.", deleted, byCollection.keySet());
+        return orders.size();
+    }
+
+    /**
+     * Looks an order up in the archive collections.
+     * Orders are archived by the month of their ID (an ObjectId generated when the order is placed),
+     * so a lookup reads a single monthly collection; IDs that are not ObjectIds were never archived.
+     *
+     * @param id The order ID.
+     * @return The archived order, if found.
+     */
+    public Optional<Order> findArchivedOrder(String id) {
+        if (!ObjectId.isValid(id)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(mongoTemplate.findById(id, Order.class, archiveCollectionFor(createdAt(id))));
+    }
+
+    /**
+     * The archive collection of an order: the month of its ObjectId, or of orderDate for other IDs.
+     */
+    static String archiveCollectionFor(Order order) {
+        return archiveCollectionFor(ObjectId.isValid(order.getId()) ? createdAt(order.getId()) : order.getOrderDate());
+    }
+
+    private static LocalDateTime createdAt(String id) {
+        return LocalDateTime.ofInstant(new ObjectId(id).getDate().toInstant(), ZoneId.systemDefault());
+    }
+
+    static String archiveCollectionFor(LocalDateTime orderDate) {
+        return ARCHIVE_COLLECTION_PREFIX + MONTH_FORMAT.format(orderDate);
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
+import br.com.ecommerce.meninadourada.model.Order;
+import br.com.ecommerce.meninadourada.model.OutboxEvent;
+import br.com.ecommerce.meninadourada.model.OutboxEventType;
+import br.com.ecommerce.meninadourada.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Handler do outbox que enfileira o e-mail de confirmação de compra para o cliente
+ * quando o pedido é pago.
+ */
+@Component
+public class OrderConfirmationEmailHandler implements OutboxEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+
+    @Autowired
+    public OrderConfirmationEmailHandler(OrderRepository orderRepository, EmailService emailService) {
+        this.orderRepository = orderRepository;
+        this.emailService = emailService;
+    }
+
+    @Override
+    public String getName() {
+        return "customer-confirmation-email";
+    }
+
+    @Override
+    public boolean supports(OutboxEventType eventType) {
+        return eventType == OutboxEventType.ORDER_PAID;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Order order = orderRepository.findById(event.getAggregateId())
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + event.getAggregateId()));
+        emailService.sendOrderConfirmationEmailToCustomer(order);
+    }
+}
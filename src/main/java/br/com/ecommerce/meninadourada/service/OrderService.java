@@ -1,19 +1,28 @@
 package br.com.ecommerce.meninadourada.service;
 
+import br.com.ecommerce.meninadourada.dto.OrderHistoryPageDTO;
+import br.com.ecommerce.meninadourada.dto.OrderSummaryDTO;
 import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
 import br.com.ecommerce.meninadourada.model.*;
 import br.com.ecommerce.meninadourada.repository.OrderRepository;
 import br.com.ecommerce.meninadourada.repository.ProdutoRepository;
-import br.com.ecommerce.meninadourada.service.EmailService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.bson.types.ObjectId;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -27,13 +36,23 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final ProdutoRepository produtoRepository; // To check stock
-    private final EmailService emailService;
+    private final OutboxService outboxService;
+    private final OrderArchiveService orderArchiveService;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher; // Notifica os streams de status (SSE)
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 50;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository, ProdutoRepository produtoRepository, EmailService emailService) {
+    public OrderService(OrderRepository orderRepository, ProdutoRepository produtoRepository, OutboxService outboxService,
+                        OrderArchiveService orderArchiveService, MongoTemplate mongoTemplate,
+                        ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.produtoRepository = produtoRepository;
-        this.emailService = emailService;
+        this.outboxService = outboxService;
+        this.orderArchiveService = orderArchiveService;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -86,6 +105,7 @@ public class OrderService {
 
     /**
      * Retrieves an order by its ID.
+     * Falls back to the monthly archive collections when the order is no longer in "orders".
      * @param id The order ID.
      * @return The retrieved Order.
      * @throws ResourceNotFoundException If the order is not found.
@@ -93,6 +113,7 @@ public class OrderService {
     public Order getOrderById(String id) {
         logger.info("Retrieving order with ID: {}", id);
         return orderRepository.findById(id)
+                .or(() -> orderArchiveService.findArchivedOrder(id))
                 .orElseThrow(() -> {
                     logger.warn("Order with ID {} not found.", id);
                     return new ResourceNotFoundException("Order not found with ID: " + id);
@@ -113,10 +134,82 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + id));
         order.setStatus(newStatus);
         Order updatedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(updatedOrder));
         logger.info("Order {} status updated successfully to {}.", updatedOrder.getId(), updatedOrder.getStatus());
         return updatedOrder;
     }
 
+    /**
+     * Lists a customer's orders, newest first, using cursor pagination.
+     * Each page is a single range read on the (customerEmail, orderDate desc, _id desc) index,
+     * projected to the summary fields (no items or shipping address).
+     * Archived orders are not included.
+     *
+     * @param customerEmail The customer e-mail (taken from a verified history token).
+     * @param cursor The nextCursor returned by the previous page, or null for the first page.
+     * @param size The page size (capped at 50).
+     * @return The page of order summaries and the cursor for the next page.
+     * @throws IllegalArgumentException If the e-mail is not informed or the cursor is invalid.
+     */
+    public OrderHistoryPageDTO getOrdersByCustomer(String customerEmail, String cursor, int size) {
+        if (customerEmail == null || customerEmail.isBlank()) {
+            throw new IllegalArgumentException("Informe customerEmail.");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        logger.info("Listing orders by customerEmail={} (cursor: {}, size: {}).", customerEmail, cursor, pageSize);
+
+        Criteria criteria = Criteria.where("customerEmail").is(customerEmail);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeHistoryCursor(cursor);
+            LocalDateTime cursorDate = LocalDateTime.parse(position[0]);
+            criteria = criteria.orOperator(
+                    Criteria.where("orderDate").lt(cursorDate),
+                    Criteria.where("orderDate").is(cursorDate).and("_id").lt(position[1]));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "orderDate").and(Sort.by(Sort.Direction.DESC, "_id")))
+                .limit(pageSize + 1);
+        query.fields().include("orderDate", "totalAmount", "status", "paymentStatus", "externalReference");
+
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            Order last = orders.get(pageSize - 1);
+            nextCursor = encodeHistoryCursor(last.getOrderDate(), last.getId());
+        }
+        List<OrderSummaryDTO> summaries = orders.stream().map(OrderSummaryDTO::fromOrder).collect(Collectors.toList());
+        return new OrderHistoryPageDTO(summaries, nextCursor);
+    }
+
+    /**
+     * Indica se há algum pedido feito com o e-mail informado (consulta só o índice).
+     *
+     * @param customerEmail O e-mail do cliente.
+     */
+    public boolean hasOrdersForCustomer(String customerEmail) {
+        return mongoTemplate.exists(new Query(Criteria.where("customerEmail").is(customerEmail)), Order.class);
+    }
+
+    private String encodeHistoryCursor(LocalDateTime orderDate, String id) {
+        String raw = orderDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeHistoryCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = raw.split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            LocalDateTime.parse(position[0]); // valida o formato
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+
     /**
      * Lists all orders.
      * @return A list of all orders.
@@ -128,23 +221,70 @@ public class OrderService {
 
 
 
+    /**
+     * Applies a Mercado Pago payment status to the order with the given external reference.
+     * This is the single path used by webhook processing: the order update and the outbox event
+     * for the transition are written in the same transaction.
+     * Callers serialize invocations per externalReference (see KeyedExecutor).
+     * Status regressions are rejected: once the payment is confirmed, a status that would move the
+     * order back (e.g. a stale "pending", or "approved" for an order already shipped) leaves it unchanged.
+     *
+     * @param externalReference The order's external reference.
+     * @param mpStatus The payment (or merchant order) status reported by Mercado Pago.
+     * @param paymentId The payment transaction ID, or null to keep the current one.
+     * @return The updated Order.
+     * @throws ResourceNotFoundException If no order has the given external reference.
+     */
+    @Transactional
+    public Order applyMercadoPagoStatus(String externalReference, String mpStatus, String paymentId) {
+        Order order = orderRepository.findByExternalReference(externalReference)
+                .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado para External Reference: " + externalReference));
+
+        OrderStatus previousStatus = order.getStatus();
+        OrderStatus newStatus = mapMercadoPagoStatus(mpStatus);
+        if (isRegression(previousStatus, newStatus)) {
+            logger.warn("Ignoring MP status '{}' for order {}: it would move the order back from {} to {}.",
+                    mpStatus, order.getId(), previousStatus, newStatus);
+            return order;
+        }
+        order.setPaymentStatus(mpStatus);
+        order.setStatus(newStatus);
+        if (paymentId != null) {
+            order.setPaymentId(paymentId);
+        }
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(savedOrder));
+
+        // E-mails são despachados em segundo plano pelo outbox, apenas na transição para PAID
+        if (savedOrder.getStatus() == OrderStatus.PAID && previousStatus != OrderStatus.PAID) {
+            outboxService.enqueue(savedOrder.getId(), OutboxEventType.ORDER_PAID);
+        }
+        return savedOrder;
+    }
+
+    @Transactional
     public boolean updateOrderAfterPayment(String preferenceId, String paymentId, String paymentStatus) {
         Optional<Order> optionalOrder = orderRepository.findByPaymentId(preferenceId); // Lembrando: você salvou o preferenceId como paymentId inicialmente
 
         if (optionalOrder.isPresent()) {
             Order order = optionalOrder.get();
+            OrderStatus previousStatus = order.getStatus();
+            OrderStatus newStatus = mapMercadoPagoStatus(paymentStatus);
+            if (isRegression(previousStatus, newStatus)) {
+                log.warn("⚠️ Status {} ignorado para o pedido {}: voltaria de {} para {}", paymentStatus, order.getId(), previousStatus, newStatus);
+                return true;
+            }
             order.setPaymentId(paymentId);
             order.setPaymentStatus(paymentStatus);
-
-            OrderStatus newStatus = mapMercadoPagoStatus(paymentStatus);
             order.setStatus(newStatus);
 
             orderRepository.save(order);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order));
             log.info("🟢 Pedido atualizado com paymentId {} e status {}", paymentId, paymentStatus);
 
-            if (newStatus == OrderStatus.PAID) {
-                emailService.sendOrderConfirmationEmailToCustomer(order);
-                emailService.sendNewSaleNotificationToStore(order);
+            // E-mails são despachados em segundo plano pelo outbox
+            if (newStatus == OrderStatus.PAID && previousStatus != OrderStatus.PAID) {
+                outboxService.enqueue(order.getId(), OutboxEventType.ORDER_PAID);
             }
 
             return true;
@@ -154,6 +294,30 @@ public class OrderService {
         }
     }
 
+    /**
+     * Once the payment is confirmed the order only moves forward (PAID, fulfilment, REFUNDED).
+     * Before that, any status is accepted, since a rejected payment may be retried and approved.
+     * Also used by OrderStatusStreamService to drop updates older than one already streamed.
+     */
+    static boolean isRegression(OrderStatus previousStatus, OrderStatus newStatus) {
+        int previousRank = statusRank(previousStatus);
+        return previousRank > 0 && statusRank(newStatus) < previousRank;
+    }
+
+    private static int statusRank(OrderStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        return switch (status) {
+            case PENDING, REJECTED, CANCELLED -> 0;
+            case PAID -> 1;
+            case PROCESSING -> 2;
+            case SHIPPED -> 3;
+            case DELIVERED -> 4;
+            case REFUNDED -> 5;
+        };
+    }
+
     private OrderStatus mapMercadoPagoStatus(String mpStatus) {
         if (mpStatus == null) {
             return OrderStatus.PENDING;
@@ -0,0 +1,20 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.Order;
+
+/**
+ * Evento publicado no barramento de eventos da aplicação sempre que o status
+ * (ou o status de pagamento) de um pedido é gravado.
+ */
+public class OrderStatusChangedEvent {
+
+    private final Order order;
+
+    public OrderStatusChangedEvent(Order order) {
+        this.order = order;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,229 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.dto.OrderSummaryDTO;
+import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
+import br.com.ecommerce.meninadourada.exception.StreamCapacityExceededException;
+import br.com.ecommerce.meninadourada.model.Order;
+import br.com.ecommerce.meninadourada.model.OrderStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams de status de pedido via Server-Sent Events, para a página de retorno do checkout
+ * não precisar consultar o pedido em loop.
+ * Cada conexão recebe o status atual ao abrir (uma única leitura no Mongo) e depois os
+ * OrderStatusChangedEvent publicados pelo OrderService após o commit. A conexão é registrada
+ * antes da leitura, para não perder uma mudança publicada entre as duas, e um status que
+ * regrediria o último já enviado (ex.: a leitura inicial chegando depois de um evento) é
+ * descartado. Conexões sem eventos
+ * por mais que o idle timeout são encerradas, e o número de conexões por nó é limitado.
+ */
+@Service
+public class OrderStatusStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusStreamService.class);
+
+    private final OrderService orderService;
+
+    // ID do pedido -> conexões inscritas
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private ThreadPoolExecutor dispatcher;
+
+    @Value("${orders.stream.max-connections:1000}")
+    private int maxConnections;
+
+    @Value("${orders.stream.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    @Value("${orders.stream.max-lifetime-ms:1800000}")
+    private long maxLifetimeMs;
+
+    @Autowired
+    public OrderStatusStreamService(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    @PostConstruct
+    void startDispatcher() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        // Envio em threads próprias: um cliente lento não atrasa quem publicou o evento
+        dispatcher = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-stream-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stopDispatcher() {
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+    }
+
+    /**
+     * Abre um stream para o pedido informado.
+     *
+     * @param orderId O ID do pedido.
+     * @return O SseEmitter da conexão.
+     * @throws IllegalArgumentException Se o ID não for informado.
+     * @throws ResourceNotFoundException Se o pedido não existir.
+     * @throws StreamCapacityExceededException Se o limite de conexões do nó foi atingido.
+     */
+    public SseEmitter subscribe(String orderId) {
+        if (orderId == null || orderId.isBlank()) {
+            throw new IllegalArgumentException("Informe orderId.");
+        }
+        if (openConnections.incrementAndGet() > maxConnections) {
+            openConnections.decrementAndGet();
+            throw new StreamCapacityExceededException("Limite de conexões de acompanhamento atingido. Tente novamente em instantes.");
+        }
+
+        SseEmitter emitter = new SseEmitter(maxLifetimeMs);
+        Subscriber subscriber = new Subscriber(emitter, orderId);
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> unregister(subscriber));
+        // Registra antes de ler o pedido: uma mudança publicada durante a leitura chega pelo evento
+        register(subscriber);
+
+        Order order;
+        try {
+            order = orderService.getOrderById(orderId);
+        } catch (RuntimeException e) {
+            unregister(subscriber);
+            throw e;
+        }
+
+        // Estado atual; se o pedido já chegou a um estado final, o stream termina aqui
+        if (subscriber.send(OrderSummaryDTO.fromOrder(order)) && isFinal(order.getStatus())) {
+            subscriber.close();
+        }
+        return emitter;
+    }
+
+    /**
+     * Repassa a mudança de status aos streams do pedido, depois do commit da transação
+     * (ou imediatamente, quando publicada fora de uma transação).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Order order = event.getOrder();
+        Set<Subscriber> targets = Set.copyOf(subscribers.getOrDefault(order.getId(), Set.of()));
+        if (targets.isEmpty()) {
+            return;
+        }
+        OrderSummaryDTO summary = OrderSummaryDTO.fromOrder(order);
+        boolean finalStatus = isFinal(order.getStatus());
+        dispatcher.execute(() -> targets.forEach(subscriber -> {
+            if (subscriber.send(summary) && finalStatus) {
+                subscriber.close();
+            }
+        }));
+    }
+
+    /**
+     * Envia um heartbeat (comentário SSE) para manter as conexões vivas em proxies
+     * e encerra as conexões ociosas além do idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat-interval-ms:15000}")
+    public void heartbeatAndExpireIdle() {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMs;
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.lastEventAtMillis < idleBefore) {
+                subscriber.close();
+            } else {
+                subscriber.heartbeat();
+            }
+        }));
+    }
+
+    private void register(Subscriber subscriber) {
+        subscribers.computeIfAbsent(subscriber.orderId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (!subscriber.unregistered.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.orderId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        openConnections.decrementAndGet();
+    }
+
+    private static boolean isFinal(OrderStatus status) {
+        return status == OrderStatus.PAID || (status != null && status.isTerminal());
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final String orderId;
+        private final AtomicBoolean unregistered = new AtomicBoolean();
+        private volatile long lastEventAtMillis = System.currentTimeMillis();
+        // Último status enviado; guardado por synchronized junto com o envio
+        private OrderStatus lastSentStatus;
+
+        private Subscriber(SseEmitter emitter, String orderId) {
+            this.emitter = emitter;
+            this.orderId = orderId;
+        }
+
+        /**
+         * Envia o status, a menos que ele seja mais antigo que o último enviado.
+         *
+         * @return true se o status foi enviado; false se foi descartado ou a conexão caiu.
+         */
+        private synchronized boolean send(OrderSummaryDTO summary) {
+            if (lastSentStatus != null && OrderService.isRegression(lastSentStatus, summary.getStatus())) {
+                logger.debug("Status {} do pedido {} descartado: {} já foi enviado.", summary.getStatus(), orderId, lastSentStatus);
+                return false;
+            }
+            try {
+                emitter.send(SseEmitter.event().name("order-status").id(String.valueOf(System.currentTimeMillis())).data(summary));
+                lastSentStatus = summary.getStatus();
+                lastEventAtMillis = System.currentTimeMillis();
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Stream do pedido encerrado pelo cliente: {}", e.getMessage());
+                unregister(this);
+                return false;
+            }
+        }
+
+        private synchronized void heartbeat() {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                unregister(this);
+            }
+        }
+
+        private void close() {
+            unregister(this);
+            emitter.complete();
+        }
+    }
+}
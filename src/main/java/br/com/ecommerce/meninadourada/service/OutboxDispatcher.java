@@ -0,0 +1,132 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.OutboxEvent;
+import br.com.ecommerce.meninadourada.model.OutboxEventStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Despachante em segundo plano do outbox de pedidos.
+ * Reserva eventos pendentes em lotes (findAndModify, seguro com várias instâncias),
+ * executa os handlers registrados gravando um checkpoint por handler e re-tenta
+ * com backoff exponencial até esgotar as tentativas.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final List<OutboxEventHandler> handlers;
+
+    @Value("${outbox.dispatcher.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.dispatcher.lock-seconds:60}")
+    private long lockSeconds;
+
+    @Value("${outbox.dispatcher.base-backoff-seconds:5}")
+    private long baseBackoffSeconds;
+
+    @Value("${outbox.dispatcher.max-backoff-seconds:900}")
+    private long maxBackoffSeconds;
+
+    @Autowired
+    public OutboxDispatcher(MongoTemplate mongoTemplate, List<OutboxEventHandler> handlers) {
+        this.mongoTemplate = mongoTemplate;
+        this.handlers = handlers;
+    }
+
+    /**
+     * Drena um lote de eventos do outbox.
+     */
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.interval-ms:2000}")
+    public void dispatchPendingEvents() {
+        int dispatched = 0;
+        OutboxEvent event;
+        while (dispatched < batchSize && (event = claimNextEvent()) != null) {
+            dispatch(event);
+            dispatched++;
+        }
+        if (dispatched > 0) {
+            logger.info("Outbox: {} evento(s) despachado(s) neste ciclo.", dispatched);
+        }
+    }
+
+    /**
+     * Reserva atomicamente o próximo evento pronto para despacho.
+     * Eventos em PROCESSING com reserva expirada (instância que caiu) também são retomados.
+     */
+    private OutboxEvent claimNextEvent() {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria ready = new Criteria().orOperator(
+                Criteria.where("status").is(OutboxEventStatus.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(OutboxEventStatus.PROCESSING).and("lockedUntil").lte(now));
+        Query query = new Query(ready).with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update update = new Update()
+                .set("status", OutboxEventStatus.PROCESSING)
+                .set("lockedUntil", now.plusSeconds(lockSeconds));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), OutboxEvent.class);
+    }
+
+    private void dispatch(OutboxEvent event) {
+        try {
+            for (OutboxEventHandler handler : handlers) {
+                if (!handler.supports(event.getEventType()) || event.getCompletedHandlers().contains(handler.getName())) {
+                    continue;
+                }
+                handler.handle(event);
+                // Checkpoint: o handler não será executado novamente em uma nova tentativa
+                mongoTemplate.updateFirst(byId(event), new Update().addToSet("completedHandlers", handler.getName()), OutboxEvent.class);
+                event.getCompletedHandlers().add(handler.getName());
+            }
+            mongoTemplate.updateFirst(byId(event), new Update()
+                    .set("status", OutboxEventStatus.DONE)
+                    .set("processedAt", LocalDateTime.now())
+                    .unset("lockedUntil"), OutboxEvent.class);
+            logger.info("Evento {} ({}) do pedido {} concluído.", event.getId(), event.getEventType(), event.getAggregateId());
+        } catch (Exception e) {
+            scheduleRetry(event, e);
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, Exception e) {
+        int attempts = event.getAttempts() + 1;
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("lastError", e.getMessage())
+                .unset("lockedUntil");
+        if (attempts >= maxAttempts) {
+            update.set("status", OutboxEventStatus.FAILED);
+            logger.error("Evento {} ({}) do pedido {} falhou após {} tentativas: {}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), attempts, e.getMessage(), e);
+        } else {
+            long backoff = Math.min(maxBackoffSeconds, baseBackoffSeconds << Math.min(attempts - 1, 20));
+            update.set("status", OutboxEventStatus.PENDING)
+                    .set("nextAttemptAt", LocalDateTime.now().plusSeconds(backoff));
+            logger.warn("Evento {} ({}) do pedido {} falhou (tentativa {}). Nova tentativa em {}s: {}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), attempts, backoff, e.getMessage());
+        }
+        mongoTemplate.updateFirst(byId(event), update, OutboxEvent.class);
+    }
+
+    private Query byId(OutboxEvent event) {
+        return new Query(Criteria.where("_id").is(event.getId()));
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.OutboxEvent;
+import br.com.ecommerce.meninadourada.model.OutboxEventType;
+
+/**
+ * Contrato para os efeitos colaterais disparados por eventos do outbox.
+ * Cada handler tem um nome estável, usado como checkpoint: um handler concluído
+ * não é executado de novo quando outro handler do mesmo evento falha e é re-tentado.
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * @return O nome estável do handler (gravado em completedHandlers).
+     */
+    String getName();
+
+    /**
+     * @param eventType O tipo do evento.
+     * @return true se este handler deve processar eventos do tipo informado.
+     */
+    boolean supports(OutboxEventType eventType);
+
+    /**
+     * Executa o efeito colateral. Qualquer exceção faz o evento ser re-tentado.
+     * @param event O evento a ser processado.
+     */
+    void handle(OutboxEvent event);
+}
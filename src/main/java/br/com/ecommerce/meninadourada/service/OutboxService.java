@@ -0,0 +1,42 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.OutboxEvent;
+import br.com.ecommerce.meninadourada.model.OutboxEventType;
+import br.com.ecommerce.meninadourada.repository.OutboxEventRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serviço para gravar eventos no outbox de pedidos.
+ * Deve ser chamado dentro da mesma transação que altera o pedido, para que o
+ * evento só exista se a transição do pedido for confirmada.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    /**
+     * Grava um novo evento pendente no outbox.
+     *
+     * @param aggregateId O ID do pedido.
+     * @param eventType O tipo do evento.
+     * @return O evento gravado.
+     */
+    public OutboxEvent enqueue(String aggregateId, OutboxEventType eventType) {
+        OutboxEvent event = new OutboxEvent(new ObjectId().toHexString(), aggregateId, eventType);
+        OutboxEvent saved = outboxEventRepository.save(event);
+        logger.info("Evento {} gravado no outbox para o pedido {}. ID: {}", eventType, aggregateId, saved.getId());
+        return saved;
+    }
+}
@@ -0,0 +1,321 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.Order;
+import br.com.ecommerce.meninadourada.model.ReconciliationCheckpoint;
+import com.mercadopago.net.MPResultsResourcesPage;
+import com.mercadopago.resources.payment.Payment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reconciliação periódica dos pedidos que ficaram em PENDING_CHECKOUT_MP (ex.: webhook perdido).
+ * Percorre os pedidos pendentes pelo índice paymentStatus_orderDate em lotes, consulta a API de
+ * busca de pagamentos uma vez por lote (intervalo de criação dos pedidos do lote) em vez de uma
+ * chamada por pedido, e aplica os status encontrados pelo mesmo caminho do webhook.
+ * As chamadas são limitadas por segundo e a posição da varredura fica salva em um checkpoint.
+ * Se a busca do lote for truncada no limite de páginas, os pedidos sem pagamento encontrado são
+ * verificados um a um (busca por externalReference) antes de o checkpoint passar por eles.
+ * Cada execução reserva o checkpoint com findAndModify (lockedBy/lockedUntil), como as reservas
+ * da inbox e do outbox; com várias instâncias, só uma percorre os pedidos por vez.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    static final String CHECKPOINT_ID = "payment-reconciliation";
+    private static final String PENDING_PAYMENT_STATUS = "PENDING_CHECKOUT_MP";
+
+    private final MongoTemplate mongoTemplate;
+    private final MercadoPagoService mercadoPagoService;
+
+    private long lastSearchAtNanos;
+    // Buscas por intervalo que atingiram max-pages-per-batch (total desde a inicialização)
+    private long truncatedSearches;
+
+    @Value("${payments.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payments.reconciliation.min-age-minutes:30}")
+    private long minAgeMinutes;
+
+    @Value("${payments.reconciliation.max-age-days:30}")
+    private long maxAgeDays;
+
+    @Value("${payments.reconciliation.batch-size:50}")
+    private int batchSize;
+
+    @Value("${payments.reconciliation.max-batches-per-run:40}")
+    private int maxBatchesPerRun;
+
+    @Value("${payments.reconciliation.search-page-size:100}")
+    private int searchPageSize;
+
+    @Value("${payments.reconciliation.max-pages-per-batch:10}")
+    private int maxPagesPerBatch;
+
+    @Value("${payments.reconciliation.payment-window-hours:72}")
+    private long paymentWindowHours;
+
+    @Value("${payments.reconciliation.max-requests-per-second:2}")
+    private double maxRequestsPerSecond;
+
+    @Value("${payments.reconciliation.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Autowired
+    public PaymentReconciliationService(MongoTemplate mongoTemplate, MercadoPagoService mercadoPagoService) {
+        this.mongoTemplate = mongoTemplate;
+        this.mercadoPagoService = mercadoPagoService;
+    }
+
+    /**
+     * Execução agendada. Continua a varredura a partir do checkpoint até esgotar os pedidos
+     * pendentes ou atingir o limite de lotes por execução; ao chegar ao fim, o checkpoint é
+     * reiniciado e a próxima execução começa uma nova varredura.
+     * Se outra instância detém a reserva do checkpoint, a execução é pulada.
+     */
+    @Scheduled(fixedDelayString = "${payments.reconciliation.interval-ms:600000}",
+            initialDelayString = "${payments.reconciliation.initial-delay-ms:60000}")
+    public void reconcilePendingOrders() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusMinutes(minAgeMinutes);
+        LocalDateTime notBefore = now.minusDays(maxAgeDays);
+
+        String runId = UUID.randomUUID().toString();
+        ReconciliationCheckpoint checkpoint = acquireCheckpoint(runId);
+        if (checkpoint == null) {
+            logger.info("Reconciliação de pagamentos em andamento em outra instância; execução pulada.");
+            return;
+        }
+        try {
+            reconcileFromCheckpoint(checkpoint, runId, notBefore, staleBefore);
+        } finally {
+            releaseCheckpoint(runId);
+        }
+    }
+
+    private void reconcileFromCheckpoint(ReconciliationCheckpoint checkpoint, String runId, LocalDateTime notBefore, LocalDateTime staleBefore) {
+        logger.info("Iniciando reconciliação de pagamentos a partir de {} / {}.", checkpoint.getLastOrderDate(), checkpoint.getLastOrderId());
+
+        int checked = 0;
+        int updated = 0;
+        long truncatedAtStart = truncatedSearches;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Order> orders = nextBatch(checkpoint, notBefore, staleBefore);
+            if (orders.isEmpty()) {
+                // Fim da varredura: a próxima execução recomeça dos pedidos mais antigos
+                mongoTemplate.remove(ownedBy(runId), ReconciliationCheckpoint.class);
+                logger.info("Reconciliação concluiu a varredura. {} pedido(s) verificados, {} atualizado(s), {} busca(s) truncada(s).",
+                        checked, updated, truncatedSearches - truncatedAtStart);
+                return;
+            }
+            try {
+                updated += reconcileBatch(orders);
+            } catch (RuntimeException e) {
+                // O checkpoint não avança: o lote é verificado novamente na próxima execução
+                logger.warn("Falha ao reconciliar lote de {} pedido(s): {}", orders.size(), e.getMessage());
+                break;
+            }
+            checked += orders.size();
+
+            Order last = orders.get(orders.size() - 1);
+            checkpoint.setLastOrderDate(last.getOrderDate());
+            checkpoint.setLastOrderId(last.getId());
+            // Avança o checkpoint e renova a reserva; se ela expirou e foi tomada, para aqui
+            Update progress = new Update()
+                    .set("lastOrderDate", last.getOrderDate())
+                    .set("lastOrderId", last.getId())
+                    .set("updatedAt", LocalDateTime.now())
+                    .set("lockedUntil", LocalDateTime.now().plusSeconds(leaseSeconds));
+            if (mongoTemplate.updateFirst(ownedBy(runId), progress, ReconciliationCheckpoint.class).getMatchedCount() == 0) {
+                logger.warn("Reserva da reconciliação perdida para outra instância; execução interrompida.");
+                return;
+            }
+        }
+        logger.info("Reconciliação pausada no checkpoint. {} pedido(s) verificados, {} atualizado(s), {} busca(s) truncada(s).",
+                checked, updated, truncatedSearches - truncatedAtStart);
+    }
+
+    /**
+     * Reserva o checkpoint para esta execução se ele estiver livre ou com a reserva expirada.
+     * Se o documento ainda não existe, é criado já reservado; se existe e está reservado, o
+     * upsert colide com o _id existente e a execução é pulada.
+     *
+     * @return O checkpoint reservado, ou null se outra instância detém a reserva.
+     */
+    private ReconciliationCheckpoint acquireCheckpoint(String runId) {
+        LocalDateTime now = LocalDateTime.now();
+        Query free = new Query(Criteria.where("_id").is(CHECKPOINT_ID).orOperator(
+                Criteria.where("lockedUntil").exists(false),
+                Criteria.where("lockedUntil").lte(now)));
+        Update lock = new Update()
+                .set("lockedBy", runId)
+                .set("lockedUntil", now.plusSeconds(leaseSeconds))
+                .setOnInsert("updatedAt", now);
+        try {
+            return mongoTemplate.findAndModify(free, lock,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), ReconciliationCheckpoint.class);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    private void releaseCheckpoint(String runId) {
+        mongoTemplate.updateFirst(ownedBy(runId), new Update().unset("lockedBy").unset("lockedUntil"), ReconciliationCheckpoint.class);
+    }
+
+    private Query ownedBy(String runId) {
+        return new Query(Criteria.where("_id").is(CHECKPOINT_ID).and("lockedBy").is(runId));
+    }
+
+    /**
+     * Lê o próximo lote de pedidos pendentes depois da posição do checkpoint (paginação por
+     * chave em orderDate, _id), lendo só os campos necessários.
+     */
+    private List<Order> nextBatch(ReconciliationCheckpoint checkpoint, LocalDateTime notBefore, LocalDateTime staleBefore) {
+        Criteria criteria = Criteria.where("paymentStatus").is(PENDING_PAYMENT_STATUS);
+        if (checkpoint.getLastOrderDate() != null && checkpoint.getLastOrderDate().isAfter(notBefore)) {
+            criteria = criteria.andOperator(
+                    Criteria.where("orderDate").lte(staleBefore),
+                    new Criteria().orOperator(
+                            Criteria.where("orderDate").gt(checkpoint.getLastOrderDate()),
+                            Criteria.where("orderDate").is(checkpoint.getLastOrderDate()).and("_id").gt(checkpoint.getLastOrderId())));
+        } else {
+            criteria = criteria.and("orderDate").gte(notBefore).lte(staleBefore);
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "orderDate").and(Sort.by(Sort.Direction.ASC, "_id")))
+                .limit(batchSize);
+        query.fields().include("_id", "orderDate", "externalReference");
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    /**
+     * Verifica um lote de pedidos com buscas paginadas de pagamentos no intervalo em que os
+     * pagamentos do lote podem ter sido criados. Se o intervalo tiver mais pagamentos do que
+     * max-pages-per-batch cobre, os pedidos do lote ainda sem pagamento são buscados um a um,
+     * para que o checkpoint nunca avance sobre um pedido não verificado.
+     *
+     * @param orders Pedidos do lote, em ordem crescente de orderDate.
+     * @return O número de pedidos atualizados.
+     */
+    int reconcileBatch(List<Order> orders) {
+        Map<String, Order> byExternalReference = orders.stream()
+                .filter(o -> o.getExternalReference() != null)
+                .collect(Collectors.toMap(Order::getExternalReference, Function.identity(), (a, b) -> a));
+        ZoneId zone = ZoneId.systemDefault();
+        OffsetDateTime begin = orders.get(0).getOrderDate().atZone(zone).toOffsetDateTime().minusMinutes(5);
+        OffsetDateTime end = orders.get(orders.size() - 1).getOrderDate().atZone(zone).toOffsetDateTime().plusHours(paymentWindowHours);
+        OffsetDateTime now = OffsetDateTime.now();
+        if (end.isAfter(now)) {
+            end = now;
+        }
+
+        // Melhor pagamento encontrado por pedido: um aprovado prevalece; senão, o mais recente
+        Map<String, Payment> found = new HashMap<>();
+        boolean truncated = true;
+        for (int page = 0; page < maxPagesPerBatch; page++) {
+            throttle();
+            MPResultsResourcesPage<Payment> results = mercadoPagoService.searchPaymentsCreatedBetween(begin, end, page * searchPageSize, searchPageSize);
+            List<Payment> payments = results.getResults() == null ? List.of() : results.getResults();
+            for (Payment payment : payments) {
+                if (payment.getExternalReference() != null && byExternalReference.containsKey(payment.getExternalReference())) {
+                    found.merge(payment.getExternalReference(), payment, PaymentReconciliationService::preferred);
+                }
+            }
+            boolean lastPage = payments.size() < searchPageSize
+                    || (results.getPaging() != null && (long) (page + 1) * searchPageSize >= results.getPaging().getTotal());
+            if (lastPage) {
+                truncated = false;
+                break;
+            }
+        }
+
+        if (truncated) {
+            truncatedSearches++;
+            List<String> unmatched = byExternalReference.keySet().stream()
+                    .filter(ref -> !found.containsKey(ref))
+                    .collect(Collectors.toList());
+            logger.warn("Busca de pagamentos truncada em {} página(s) ({} a {}); verificando {} pedido(s) do lote individualmente.",
+                    maxPagesPerBatch, begin, end, unmatched.size());
+            for (String externalReference : unmatched) {
+                throttle();
+                MPResultsResourcesPage<Payment> results = mercadoPagoService.searchPaymentsByExternalReference(externalReference);
+                if (results.getResults() != null) {
+                    for (Payment payment : results.getResults()) {
+                        if (externalReference.equals(payment.getExternalReference())) {
+                            found.merge(externalReference, payment, PaymentReconciliationService::preferred);
+                        }
+                    }
+                }
+            }
+        }
+
+        int updated = 0;
+        for (Payment payment : found.values()) {
+            try {
+                Order order = mercadoPagoService.applyPaymentStatus(payment);
+                updated++;
+                logger.info("Pedido {} reconciliado. Status MP: {}. Novo status: {}", order.getId(), payment.getStatus(), order.getStatus());
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao aplicar pagamento {} ao pedido {}: {}", payment.getId(), payment.getExternalReference(), e.getMessage());
+            }
+        }
+        return updated;
+    }
+
+    private static Payment preferred(Payment current, Payment candidate) {
+        boolean currentApproved = "approved".equalsIgnoreCase(current.getStatus());
+        boolean candidateApproved = "approved".equalsIgnoreCase(candidate.getStatus());
+        if (currentApproved != candidateApproved) {
+            return currentApproved ? current : candidate;
+        }
+        if (current.getDateLastUpdated() == null || candidate.getDateLastUpdated() == null) {
+            return candidate;
+        }
+        return candidate.getDateLastUpdated().isAfter(current.getDateLastUpdated()) ? candidate : current;
+    }
+
+    /**
+     * Espaça as buscas para respeitar o limite de requisições por segundo.
+     */
+    private void throttle() {
+        long minIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / maxRequestsPerSecond);
+        long waitNanos = lastSearchAtNanos + minIntervalNanos - System.nanoTime();
+        if (lastSearchAtNanos > 0 && waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reconciliação interrompida.", e);
+            }
+        }
+        lastSearchAtNanos = System.nanoTime();
+    }
+}
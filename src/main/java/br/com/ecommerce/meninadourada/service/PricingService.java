@@ -0,0 +1,250 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.dto.OrderItemDTO;
+import br.com.ecommerce.meninadourada.model.OrderItem;
+import br.com.ecommerce.meninadourada.model.Produto;
+import br.com.ecommerce.meninadourada.model.VariacaoProduto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Precificação do carrinho no servidor, a partir de uma tabela em memória
+ * variationId -> (produto, preço, estoque, ativo).
+ * A tabela é carregada do catálogo com uma leitura em streaming, atualizada a cada escrita do
+ * ProdutoService (ProductChangedEvent) e recarregada periodicamente para refletir escritas feitas
+ * em outras instâncias. Preço unitário e total enviados pelo cliente não são usados.
+ * Uma variação desconhecida é buscada no banco uma vez (fora do lock da tabela); se não existir,
+ * fica em um cache negativo curto, para que IDs inválidos repetidos não cheguem ao Mongo.
+ */
+@Service
+public class PricingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PricingService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    // Snapshot imutável, trocado por inteiro a cada atualização
+    private volatile Map<String, PriceEntry> priceTable;
+    // "productId/variationId" -> expiração, para variações buscadas no banco e não encontradas
+    private final Map<String, Long> missExpiresAt = new ConcurrentHashMap<>();
+
+    @Value("${pricing.miss-cache-ttl-seconds:60}")
+    private long missCacheTtlSeconds;
+
+    @Value("${pricing.miss-cache-max-entries:10000}")
+    private int missCacheMaxEntries;
+
+    @Autowired
+    public PricingService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Valida e precifica os itens do carrinho com os preços do catálogo.
+     *
+     * @param items Os itens enviados pelo cliente (só produto, variação e quantidade são usados).
+     * @return Os itens com preço unitário e nome do catálogo e o total calculado.
+     * @throws IllegalArgumentException Se o carrinho estiver vazio ou algum item for inválido,
+     *                                  inativo ou sem estoque suficiente.
+     */
+    public PricedCart priceCart(List<OrderItemDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("O carrinho não possui itens.");
+        }
+        List<OrderItem> pricedItems = new ArrayList<>(items.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItemDTO item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantidade inválida para a variação " + item.getVariationId());
+            }
+            PriceEntry entry = lookup(item.getProductId(), item.getVariationId());
+            if (!entry.active) {
+                throw new IllegalArgumentException("Produto indisponível: " + entry.productName);
+            }
+            if (entry.stock < item.getQuantity()) {
+                throw new IllegalArgumentException("Estoque insuficiente para o produto: " + entry.productName);
+            }
+            if (item.getUnitPrice() != null && item.getUnitPrice().compareTo(entry.price) != 0) {
+                logger.warn("Preço enviado pelo cliente ({}) difere do catálogo ({}) para a variação {}. Usando o do catálogo.",
+                        item.getUnitPrice(), entry.price, item.getVariationId());
+            }
+            pricedItems.add(new OrderItem(entry.productId, entry.productName, item.getVariationId(), item.getQuantity(), entry.price));
+            total = total.add(entry.price.multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        return new PricedCart(pricedItems, total);
+    }
+
+    private PriceEntry lookup(String productId, String variationId) {
+        PriceEntry entry = table().get(variationId);
+        if (entry == null && productId != null && variationId != null) {
+            // Produto possivelmente criado/alterado em outra instância: busca só ele
+            entry = loadMissingVariation(productId, variationId);
+        }
+        if (entry == null || (productId != null && !productId.equals(entry.productId))) {
+            throw new IllegalArgumentException("Produto ou variação não encontrado: " + productId + " / " + variationId);
+        }
+        return entry;
+    }
+
+    private Map<String, PriceEntry> table() {
+        Map<String, PriceEntry> current = priceTable;
+        if (current == null) {
+            reloadAll();
+            current = priceTable;
+        }
+        return current;
+    }
+
+    /**
+     * Atualiza a tabela depois do commit de uma escrita no catálogo.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            reloadAll();
+        } else {
+            missExpiresAt.keySet().removeIf(key -> key.startsWith(event.getProductId() + "/"));
+            refreshProduct(event.getProductId());
+        }
+    }
+
+    /**
+     * Recarrega a tabela inteira, lendo o catálogo em streaming (só os campos de preço).
+     */
+    @Scheduled(fixedDelayString = "${pricing.refresh-interval-ms:300000}", initialDelayString = "${pricing.initial-delay-ms:0}")
+    public synchronized void reloadAll() {
+        Query query = new Query();
+        query.fields().include("nome", "ativo", "variacoes.id", "variacoes.preco", "variacoes.estoque");
+        Map<String, PriceEntry> table = new HashMap<>();
+        try (Stream<Produto> products = mongoTemplate.stream(query, Produto.class)) {
+            products.forEach(produto -> putEntries(table, produto));
+        }
+        priceTable = Collections.unmodifiableMap(table);
+        missExpiresAt.clear();
+        logger.info("Tabela de preços carregada com {} variações.", table.size());
+    }
+
+    /**
+     * Busca no banco uma variação ausente da tabela. A leitura acontece fora do lock; a tabela só
+     * é copiada se o produto existir e tiver a variação. Caso contrário, o par fica no cache negativo.
+     */
+    private PriceEntry loadMissingVariation(String productId, String variationId) {
+        String missKey = productId + "/" + variationId;
+        Long expiresAt = missExpiresAt.get(missKey);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            return null;
+        }
+        Produto produto = mongoTemplate.findById(productId, Produto.class);
+        boolean hasVariation = produto != null && produto.getVariacoes() != null
+                && produto.getVariacoes().stream().anyMatch(v -> variationId.equals(v.getId()));
+        if (!hasVariation) {
+            rememberMiss(missKey);
+            return null;
+        }
+        synchronized (this) {
+            // Uma atualização concorrente (evento ou recarga) pode já ter incluído a variação
+            if (!priceTable.containsKey(variationId)) {
+                Map<String, PriceEntry> table = new HashMap<>(priceTable);
+                table.values().removeIf(entry -> entry.productId.equals(productId));
+                putEntries(table, produto);
+                priceTable = Collections.unmodifiableMap(table);
+            }
+        }
+        return priceTable.get(variationId);
+    }
+
+    private void rememberMiss(String missKey) {
+        if (missExpiresAt.size() >= missCacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            missExpiresAt.values().removeIf(expiresAt -> expiresAt <= now);
+            if (missExpiresAt.size() >= missCacheMaxEntries) {
+                logger.warn("Cache negativo de preços cheio ({} entradas); limpando.", missExpiresAt.size());
+                missExpiresAt.clear();
+            }
+        }
+        missExpiresAt.put(missKey, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(missCacheTtlSeconds));
+    }
+
+    private synchronized void refreshProduct(String productId) {
+        Map<String, PriceEntry> current = priceTable;
+        if (current == null) {
+            reloadAll();
+            return;
+        }
+        Map<String, PriceEntry> table = new HashMap<>(current);
+        table.values().removeIf(entry -> entry.productId.equals(productId));
+        Produto produto = mongoTemplate.findById(productId, Produto.class);
+        if (produto != null) {
+            putEntries(table, produto);
+        }
+        priceTable = Collections.unmodifiableMap(table);
+    }
+
+    private static void putEntries(Map<String, PriceEntry> table, Produto produto) {
+        if (produto.getVariacoes() == null) {
+            return;
+        }
+        boolean active = !Boolean.FALSE.equals(produto.getAtivo());
+        for (VariacaoProduto variacao : produto.getVariacoes()) {
+            if (variacao.getId() == null || variacao.getPreco() == null) {
+                continue;
+            }
+            int stock = variacao.getEstoque() == null ? 0 : variacao.getEstoque();
+            table.put(variacao.getId(), new PriceEntry(produto.getId(), produto.getNome(), variacao.getPreco(), stock, active));
+        }
+    }
+
+    private static final class PriceEntry {
+        private final String productId;
+        private final String productName;
+        private final BigDecimal price;
+        private final int stock;
+        private final boolean active;
+
+        private PriceEntry(String productId, String productName, BigDecimal price, int stock, boolean active) {
+            this.productId = productId;
+            this.productName = productName;
+            this.price = price;
+            this.stock = stock;
+            this.active = active;
+        }
+    }
+
+    /**
+     * Resultado da precificação: itens com preços do catálogo e o total.
+     */
+    public static final class PricedCart {
+        private final List<OrderItem> items;
+        private final BigDecimal totalAmount;
+
+        private PricedCart(List<OrderItem> items, BigDecimal totalAmount) {
+            this.items = items;
+            this.totalAmount = totalAmount;
+        }
+
+        public List<OrderItem> getItems() {
+            return items;
+        }
+
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+    }
+}
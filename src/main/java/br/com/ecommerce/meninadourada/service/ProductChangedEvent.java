@@ -0,0 +1,18 @@
+package br.com.ecommerce.meninadourada.service;
+
+/**
+ * Evento publicado pelo ProdutoService quando um produto é criado, alterado ou removido.
+ * Um productId nulo indica que o catálogo inteiro mudou (ex.: remoção de todos os produtos).
+ */
+public class ProductChangedEvent {
+
+    private final String productId;
+
+    public ProductChangedEvent(String productId) {
+        this.productId = productId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+}
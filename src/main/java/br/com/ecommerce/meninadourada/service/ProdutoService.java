@@ -9,6 +9,7 @@ import br.com.ecommerce.meninadourada.model.VariacaoProduto;
 import br.com.ecommerce.meninadourada.repository.ProdutoRepository;
 import br.com.ecommerce.meninadourada.exception.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -36,11 +37,13 @@ public class ProdutoService {
 
     private final ProdutoRepository produtoRepository;
     private final S3Service s3Service; // Injete o S3Service
+    private final ApplicationEventPublisher eventPublisher; // Mantém a tabela de preços (PricingService) atualizada
 
     @Autowired
-    public ProdutoService(ProdutoRepository produtoRepository, S3Service s3Service) {
+    public ProdutoService(ProdutoRepository produtoRepository, S3Service s3Service, ApplicationEventPublisher eventPublisher) {
         this.produtoRepository = produtoRepository;
         this.s3Service = s3Service;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -107,6 +110,7 @@ public class ProdutoService {
         }
 
         Produto savedProduto = produtoRepository.save(produto);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduto.getId()));
         logger.info("Produto cadastrado com sucesso. ID: {}", savedProduto.getId());
         return savedProduto;
     }
@@ -164,6 +168,7 @@ public class ProdutoService {
                     .collect(Collectors.toList());
 
             List<Produto> savedProducts = produtoRepository.saveAll(produtosParaSalvar);
+            savedProducts.forEach(p -> eventPublisher.publishEvent(new ProductChangedEvent(p.getId())));
             logger.info("{} produtos cadastrados em lote com sucesso.", savedProducts.size());
             return savedProducts;
         } catch (Exception e) {
@@ -274,6 +279,7 @@ public class ProdutoService {
         }
 
         Produto updatedProduto = produtoRepository.save(produtoExistente);
+        eventPublisher.publishEvent(new ProductChangedEvent(updatedProduto.getId()));
         logger.info("Produto com ID {} atualizado com sucesso.", updatedProduto.getId());
         return updatedProduto;
     }
@@ -284,6 +290,7 @@ public class ProdutoService {
         logger.warn("Iniciando exclusão de TODOS os produtos. Esta operação é irreversível!");
         try {
             produtoRepository.deleteAll(); // Usa o método deleteAll() do MongoRepository
+            eventPublisher.publishEvent(new ProductChangedEvent(null));
             logger.info("Todos os produtos foram deletados com sucesso.");
         } catch (Exception e) {
             logger.error("Erro ao deletar todos os produtos: {}", e.getMessage(), e);
@@ -307,6 +314,7 @@ public class ProdutoService {
                 });
 
         produtoRepository.delete(produtoParaDeletar);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
         logger.info("Produto com ID {} deletado com sucesso.", id);
     }
 }
@@ -1,9 +1,16 @@
 package br.com.ecommerce.meninadourada.service;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -11,27 +18,91 @@ import org.springframework.web.multipart.MultipartFile; // Importe para Multipar
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Serviço para interagir com o Amazon S3 para upload e exclusão de arquivos.
+ * Arquivos a partir de aws.s3.multipart-threshold-bytes são enviados por multipart upload:
+ * o arquivo é lido em sequência, parte a parte, e as partes sobem em paralelo por um pool
+ * compartilhado, com novas tentativas por parte. Se uma parte esgotar as tentativas, o upload
+ * é abortado no S3 (as partes já enviadas são descartadas e não ficam sendo cobradas).
+ * A memória usada por upload é limitada a max-parts-in-flight partes.
  */
 @Service
 public class S3Service {
 
     private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
 
+    // Limites do S3 para multipart upload
+    private static final long MIN_PART_SIZE_BYTES = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
     private final AmazonS3 s3Client;
+    private ThreadPoolExecutor partUploader;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
+    @Value("${aws.s3.multipart-threshold-bytes:8388608}")
+    private long multipartThresholdBytes;
+
+    @Value("${aws.s3.part-size-bytes:8388608}")
+    private long partSizeBytes;
+
+    @Value("${aws.s3.upload-threads:8}")
+    private int uploadThreads;
+
+    @Value("${aws.s3.max-parts-in-flight:4}")
+    private int maxPartsInFlight;
+
+    @Value("${aws.s3.part-max-attempts:3}")
+    private int partMaxAttempts;
+
+    @Value("${aws.s3.part-retry-backoff-ms:200}")
+    private long partRetryBackoffMs;
+
     @Autowired
     public S3Service(AmazonS3 s3Client) {
         this.s3Client = s3Client;
     }
 
+    @PostConstruct
+    void startPartUploader() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // Fila cheia: a thread do upload envia a parte ela mesma (contrapressão em vez de erro)
+        partUploader = new ThreadPoolExecutor(uploadThreads, uploadThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadThreads * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "s3-part-upload-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        partUploader.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stopPartUploader() throws InterruptedException {
+        partUploader.shutdown();
+        if (!partUploader.awaitTermination(10, TimeUnit.SECONDS)) {
+            partUploader.shutdownNow();
+        }
+    }
+
     /**
      * Realiza o upload de um arquivo para o Amazon S3.
      * O arquivo é salvo com um nome único (UUID) para evitar colisões.
@@ -50,12 +121,16 @@ public class S3Service {
             metadata.setContentLength(file.getSize());
             metadata.setContentType(file.getContentType());
 
-            PutObjectRequest putObjectRequest = new PutObjectRequest(
-                    bucketName, fileName, file.getInputStream(), metadata);
+            if (file.getSize() >= multipartThresholdBytes) {
+                uploadMultipart(file, fileName, metadata);
+            } else {
+                PutObjectRequest putObjectRequest = new PutObjectRequest(
+                        bucketName, fileName, file.getInputStream(), metadata);
 
-            // REMOVIDO: putObjectRequest.withCannedAcl(CannedAccessControlList.PublicRead); // Esta linha foi removida
+                // REMOVIDO: putObjectRequest.withCannedAcl(CannedAccessControlList.PublicRead); // Esta linha foi removida
 
-            s3Client.putObject(putObjectRequest);
+                s3Client.putObject(putObjectRequest);
+            }
             String fileUrl = s3Client.getUrl(bucketName, fileName).toString();
             logger.info("File {} sent to S3 successfully. URL: {}", originalFilename, fileUrl);
             return fileUrl;
@@ -68,6 +143,116 @@ public class S3Service {
         }
     }
 
+    /**
+     * Envia o arquivo por multipart upload, com as partes em paralelo.
+     * A leitura do arquivo é sequencial; cada parte lida vira uma tarefa no pool, e no máximo
+     * maxPartsInFlight partes do mesmo upload ficam em memória ao mesmo tempo.
+     */
+    private void uploadMultipart(MultipartFile file, String fileName, ObjectMetadata metadata) throws IOException {
+        long totalSize = file.getSize();
+        // Respeita o mínimo de 5 MB por parte e o máximo de 10.000 partes do S3
+        long partSize = Math.max(Math.max(partSizeBytes, MIN_PART_SIZE_BYTES), (totalSize + MAX_PARTS - 1) / MAX_PARTS);
+        String uploadId = s3Client.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, fileName, metadata)).getUploadId();
+        long startedAt = System.currentTimeMillis();
+
+        Semaphore inFlight = new Semaphore(Math.max(1, maxPartsInFlight));
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<PartETag>> parts = new ArrayList<>();
+        try (InputStream input = file.getInputStream()) {
+            long offset = 0;
+            int partNumber = 1;
+            while (offset < totalSize) {
+                byte[] part = input.readNBytes((int) Math.min(partSize, totalSize - offset));
+                if (part.length == 0) {
+                    throw new IOException("Unexpected end of file at byte " + offset + " of " + totalSize);
+                }
+                inFlight.acquire();
+                int number = partNumber;
+                try {
+                    parts.add(partUploader.submit(() -> {
+                        try {
+                            return uploadPart(fileName, uploadId, number, part, aborted);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                // Falha antecipada: não continua lendo o arquivo se uma parte já falhou
+                for (Future<PartETag> uploaded : parts) {
+                    if (uploaded.isDone()) {
+                        uploaded.get();
+                    }
+                }
+                offset += part.length;
+                partNumber++;
+            }
+
+            List<PartETag> etags = new ArrayList<>(parts.size());
+            for (Future<PartETag> uploaded : parts) {
+                etags.add(uploaded.get());
+            }
+            etags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+            s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, fileName, uploadId, etags));
+            logger.info("Multipart upload of {} completed: {} bytes in {} parts, {} ms.",
+                    fileName, totalSize, etags.size(), System.currentTimeMillis() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipart(fileName, uploadId, parts, aborted);
+            throw new IOException("Multipart upload interrupted", e);
+        } catch (ExecutionException e) {
+            abortMultipart(fileName, uploadId, parts, aborted);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Failed to upload part to S3: " + cause.getMessage(), cause);
+        } catch (IOException | RuntimeException e) {
+            abortMultipart(fileName, uploadId, parts, aborted);
+            throw e;
+        }
+    }
+
+    /**
+     * Envia uma parte, com novas tentativas e backoff exponencial. Os bytes da parte ficam em
+     * memória, então cada tentativa reenvia a parte inteira sem depender do arquivo.
+     */
+    private PartETag uploadPart(String fileName, String uploadId, int partNumber, byte[] part, AtomicBoolean aborted)
+            throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return s3Client.uploadPart(new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(fileName)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withPartSize(part.length)
+                        .withInputStream(new ByteArrayInputStream(part))).getPartETag();
+            } catch (RuntimeException e) {
+                if (attempt >= partMaxAttempts || aborted.get()) {
+                    throw e;
+                }
+                long backoff = partRetryBackoffMs << Math.min(attempt - 1, 10);
+                logger.warn("Part {} of {} failed (attempt {}/{}), retrying in {} ms: {}",
+                        partNumber, fileName, attempt, partMaxAttempts, backoff, e.getMessage());
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    private void abortMultipart(String fileName, String uploadId, List<Future<PartETag>> parts, AtomicBoolean aborted) {
+        aborted.set(true);
+        // Cancela as partes que ainda não começaram; as em andamento recebem NoSuchUpload após o abort
+        parts.forEach(part -> part.cancel(true));
+        try {
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, fileName, uploadId));
+            logger.warn("Multipart upload of {} aborted (upload ID {}).", fileName, uploadId);
+        } catch (Exception e) {
+            // Sem o abort as partes ficam no bucket até uma regra de ciclo de vida removê-las
+            logger.error("Failed to abort multipart upload {} of {}: {}", uploadId, fileName, e.getMessage(), e);
+        }
+    }
+
     /**
      * Deletes a file from Amazon S3.
      *
@@ -0,0 +1,91 @@
+package br.com.ecommerce.meninadourada.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Tokens assinados e sem estado: os campos (sem quebras de linha) são unidos por "\n" e
+ * assinados com HMAC-SHA256. Formato: base64url(campos) + "." + base64url(hmac).
+ * A verificação é toda em memória, com comparação da assinatura em tempo constante.
+ * Não é um bean: cada uso cria a sua instância, com o seu segredo.
+ */
+public class SignedTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final String secretProperty;
+    // Mac não é thread-safe: uma instância por thread
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * @param secretProperty O nome da propriedade do segredo (usado nas mensagens de erro).
+     * @param secret O segredo do HMAC (ao menos 32 caracteres).
+     */
+    public SignedTokenCodec(String secretProperty, String secret) {
+        if (secret == null || secret.length() < 32) {
+            throw new IllegalStateException(secretProperty + " deve ter ao menos 32 caracteres");
+        }
+        this.secretProperty = secretProperty;
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 indisponível para " + this.secretProperty, e);
+            }
+        });
+    }
+
+    /**
+     * Gera o token com os campos informados.
+     *
+     * @param fields Os campos do token (não podem conter "\n").
+     * @return O token (seguro para URLs).
+     */
+    public String encode(String... fields) {
+        byte[] payload = String.join("\n", fields).getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac.get().doFinal(payload));
+    }
+
+    /**
+     * Verifica a assinatura e retorna os campos do token.
+     *
+     * @param token O token recebido.
+     * @param fieldCount O número de campos esperado.
+     * @param invalidMessage A mensagem da exceção para tokens inválidos.
+     * @return Os campos, na ordem em que foram assinados.
+     * @throws IllegalArgumentException Se o token estiver malformado ou a assinatura não conferir.
+     */
+    public List<String> decode(String token, int fieldCount, String invalidMessage) {
+        int dot = token != null ? token.indexOf('.') : -1;
+        if (dot <= 0) {
+            throw new IllegalArgumentException(invalidMessage);
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(invalidMessage, e);
+        }
+        if (!MessageDigest.isEqual(mac.get().doFinal(payload), signature)) {
+            throw new IllegalArgumentException(invalidMessage);
+        }
+        String[] fields = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+        if (fields.length != fieldCount || Arrays.stream(fields).anyMatch(String::isEmpty)) {
+            throw new IllegalArgumentException(invalidMessage);
+        }
+        return List.of(fields);
+    }
+}
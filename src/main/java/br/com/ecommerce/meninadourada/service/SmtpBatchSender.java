@@ -0,0 +1,212 @@
+package br.com.ecommerce.meninadourada.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Envio de lotes de e-mails por uma mesma sessão SMTP autenticada.
+ * O JavaMailSender abre (handshake + STARTTLS + AUTH) e fecha uma conexão a cada chamada;
+ * aqui as conexões ficam abertas ("quentes") entre os lotes por um tempo ocioso configurável
+ * e são reaproveitadas, pois o provedor limita a taxa de conexões muito antes da de mensagens.
+ * Cada conexão é usada por um lote por vez; conexões ociosas além do limite são fechadas.
+ */
+@Component
+public class SmtpBatchSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpBatchSender.class);
+
+    private final JavaMailSender mailSender;
+
+    // Conexões abertas e livres; a mais recente fica no início
+    private final ConcurrentLinkedDeque<WarmTransport> idleTransports = new ConcurrentLinkedDeque<>();
+
+    @Value("${email.smtp.idle-timeout-ms:30000}")
+    private long idleTimeoutMs;
+
+    @Value("${email.smtp.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Autowired
+    public SmtpBatchSender(JavaMailSender mailSender) {
+        this.mailSender = mailSender;
+    }
+
+    /**
+     * Monta uma mensagem MIME (UTF-8): só texto, ou multipart/alternative com texto e HTML.
+     */
+    public MimeMessage createMessage(String from, String to, String subject, String text, String html) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, html != null, "UTF-8");
+        helper.setFrom(from);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        if (html != null) {
+            helper.setText(text, html);
+        } else {
+            helper.setText(text);
+        }
+        return message;
+    }
+
+    /**
+     * Envia as mensagens em sequência por uma conexão quente (ou uma nova, se não houver).
+     * Uma falha de um destinatário não interrompe o lote; se a conexão cair, o envio continua
+     * por uma nova conexão.
+     *
+     * @param messages As mensagens do lote.
+     * @return Lista alinhada com as mensagens: null para as enviadas, ou a exceção da falha.
+     */
+    public List<Exception> send(List<MimeMessage> messages) {
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            return sendWithMailSender(messages);
+        }
+        List<Exception> failures = new ArrayList<>(messages.size());
+        WarmTransport warm = null;
+        MessagingException connectFailure = null;
+        for (MimeMessage message : messages) {
+            if (connectFailure != null) {
+                // Servidor inacessível: não tenta uma conexão por mensagem
+                failures.add(connectFailure);
+                continue;
+            }
+            try {
+                if (warm == null) {
+                    warm = borrow(impl);
+                }
+                if (message.getSentDate() == null) {
+                    message.setSentDate(new Date());
+                }
+                message.saveChanges();
+                warm.transport.sendMessage(message, message.getAllRecipients());
+                warm.messagesSent++;
+                failures.add(null);
+            } catch (SendFailedException e) {
+                // Destinatário recusado: a conexão continua válida
+                failures.add(e);
+            } catch (MessagingException e) {
+                failures.add(e);
+                if (warm == null) {
+                    connectFailure = e;
+                } else {
+                    close(warm);
+                    warm = null;
+                }
+            }
+            if (warm != null && warm.messagesSent >= maxMessagesPerConnection) {
+                close(warm);
+                warm = null;
+            }
+        }
+        if (warm != null) {
+            warm.lastUsedAtMillis = System.currentTimeMillis();
+            idleTransports.offerFirst(warm);
+        }
+        return failures;
+    }
+
+    /**
+     * Indica se a falha foi a recusa de um destinatário (ex.: endereço inexistente), que não se
+     * resolve com novas tentativas. Falhas de conexão, autenticação ou do servidor retornam false.
+     *
+     * @param failure Uma falha retornada por send().
+     */
+    public static boolean isRecipientRejection(Exception failure) {
+        return failure instanceof SendFailedException sendFailed
+                && sendFailed.getInvalidAddresses() != null && sendFailed.getInvalidAddresses().length > 0;
+    }
+
+    /**
+     * Fecha as conexões ociosas além do idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${email.smtp.idle-check-interval-ms:10000}")
+    public void closeIdleTransports() {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMs;
+        Iterator<WarmTransport> iterator = idleTransports.iterator();
+        while (iterator.hasNext()) {
+            WarmTransport warm = iterator.next();
+            if (warm.lastUsedAtMillis < idleBefore && idleTransports.removeFirstOccurrence(warm)) {
+                close(warm);
+            }
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        WarmTransport warm;
+        while ((warm = idleTransports.pollFirst()) != null) {
+            close(warm);
+        }
+    }
+
+    private WarmTransport borrow(JavaMailSenderImpl impl) throws MessagingException {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMs;
+        WarmTransport warm;
+        while ((warm = idleTransports.pollFirst()) != null) {
+            // isConnected() envia um NOOP: descarta conexões encerradas pelo servidor
+            if (warm.lastUsedAtMillis >= idleBefore && warm.transport.isConnected()) {
+                return warm;
+            }
+            close(warm);
+        }
+        Transport transport = impl.getSession().getTransport(impl.getProtocol() != null ? impl.getProtocol() : "smtp");
+        transport.connect(impl.getHost(), impl.getPort(), impl.getUsername(), impl.getPassword());
+        logger.debug("Nova conexão SMTP aberta com {}:{}.", impl.getHost(), impl.getPort());
+        return new WarmTransport(transport);
+    }
+
+    private void close(WarmTransport warm) {
+        try {
+            warm.transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Falha ao fechar conexão SMTP: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Caminho para implementações de JavaMailSender que não expõem a sessão:
+     * um único send(MimeMessage...) por lote.
+     */
+    private List<Exception> sendWithMailSender(List<MimeMessage> messages) {
+        List<Exception> failures = new ArrayList<>(messages.size());
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+            messages.forEach(message -> failures.add(null));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            messages.forEach(message -> failures.add(failed.isEmpty() ? e : failed.get(message)));
+        } catch (Exception e) {
+            messages.forEach(message -> failures.add(e));
+        }
+        return failures;
+    }
+
+    private static final class WarmTransport {
+        private final Transport transport;
+        private int messagesSent;
+        private volatile long lastUsedAtMillis = System.currentTimeMillis();
+
+        private WarmTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
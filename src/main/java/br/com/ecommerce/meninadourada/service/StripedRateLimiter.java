@@ -0,0 +1,149 @@
+package br.com.ecommerce.meninadourada.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets por chave (ex.: IP do cliente), todos com a mesma taxa e capacidade.
+ * As chaves ficam divididas em faixas (stripes), cada uma com um HashMap e o seu próprio lock:
+ * requisições de clientes diferentes raramente disputam o mesmo lock, e cada bucket guarda só
+ * dois campos (tokens e último reabastecimento), sem objetos de sincronização próprios.
+ * Um bucket que já se reabasteceu por completo é igual a um novo, então evictIdle() pode
+ * removê-lo sem mudar o comportamento. Não é um bean: cada uso cria a sua instância.
+ */
+public class StripedRateLimiter {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxEntriesPerStripe;
+
+    /**
+     * @param ratePerSecond Tokens repostos por segundo em cada bucket.
+     * @param capacity Rajada máxima de cada bucket.
+     * @param stripeCount Número de faixas (arredondado para potência de 2).
+     * @param maxEntries Limite total de buckets guardados.
+     */
+    public StripedRateLimiter(double ratePerSecond, double capacity, int stripeCount, int maxEntries) {
+        if (ratePerSecond <= 0 || capacity < 1 || stripeCount < 1 || maxEntries < 1) {
+            throw new IllegalArgumentException("Taxa, capacidade, faixas e limite de entradas devem ser positivos.");
+        }
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.maxEntriesPerStripe = Math.max(1, maxEntries / size);
+    }
+
+    /**
+     * Consome um token do bucket da chave.
+     *
+     * @param key A chave do cliente.
+     * @return 0 se o token foi consumido, ou quantos nanossegundos faltam para haver um.
+     */
+    public long tryAcquire(String key) {
+        Stripe stripe = stripes[spread(key.hashCode()) & mask];
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                if (stripe.buckets.size() >= maxEntriesPerStripe && evictFull(stripe, now) == 0) {
+                    // Faixa cheia de clientes ativos: não rastreia este (o limite global da rota continua valendo)
+                    return 0;
+                }
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.lastRefillNanos) * tokensPerNano);
+                bucket.lastRefillNanos = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        }
+    }
+
+    /**
+     * Devolve um token consumido por tryAcquire (ex.: a requisição foi barrada por outro limite).
+     *
+     * @param key A chave do cliente.
+     */
+    public void release(String key) {
+        Stripe stripe = stripes[spread(key.hashCode()) & mask];
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket != null) {
+                bucket.tokens = Math.min(capacity, bucket.tokens + 1);
+            }
+        }
+    }
+
+    /**
+     * Remove os buckets que já se reabasteceram por completo (clientes ociosos).
+     *
+     * @return O número de buckets removidos.
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                evicted += evictFull(stripe, now);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @return O número de buckets guardados.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private int evictFull(Stripe stripe, long now) {
+        int evicted = 0;
+        Iterator<Bucket> iterator = stripe.buckets.values().iterator();
+        while (iterator.hasNext()) {
+            Bucket bucket = iterator.next();
+            if (bucket.tokens + (now - bucket.lastRefillNanos) * tokensPerNano >= capacity) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.ecommerce.meninadourada.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket: permite rajadas até a capacidade e repõe os tokens continuamente
+ * na taxa configurada. Thread-safe.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param ratePerSecond Tokens repostos por segundo.
+     * @param capacity Tamanho máximo da rajada (o bucket começa cheio).
+     */
+    public TokenBucket(double ratePerSecond, double capacity) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Taxa deve ser positiva e capacidade ao menos 1.");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Consome um token se houver.
+     *
+     * @return true se o token foi consumido.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consome um token, aguardando a reposição se necessário.
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = nanosUntilAvailableLocked();
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000L));
+        }
+    }
+
+    /**
+     * @return Quanto tempo falta para haver um token (0 se já houver).
+     */
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        return nanosUntilAvailableLocked();
+    }
+
+    private long nanosUntilAvailableLocked() {
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
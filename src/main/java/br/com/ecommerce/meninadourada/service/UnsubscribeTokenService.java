@@ -0,0 +1,89 @@
+package br.com.ecommerce.meninadourada.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tokens de descadastro da newsletter, assinados e sem estado: o token carrega o ID e o e-mail
+ * da inscrição e um HMAC-SHA256 sobre os dois, com um segredo do servidor (SignedTokenCodec).
+ * A verificação é feita toda em memória; o banco só é acessado para remover a inscrição.
+ */
+@Component
+public class UnsubscribeTokenService {
+
+    private static final String INVALID_TOKEN = "Link de descadastro inválido.";
+
+    private final SignedTokenCodec codec;
+
+    @Value("${newsletter.unsubscribe.page-url}")
+    private String pageUrl;
+
+    @Value("${newsletter.unsubscribe.one-click-url}")
+    private String oneClickUrl;
+
+    @Autowired
+    public UnsubscribeTokenService(@Value("${newsletter.unsubscribe.secret}") String secret) {
+        this.codec = new SignedTokenCodec("newsletter.unsubscribe.secret", secret);
+    }
+
+    /**
+     * Gera o token de descadastro de uma inscrição.
+     *
+     * @param id O ID da inscrição.
+     * @param email O e-mail da inscrição.
+     * @return O token (seguro para URLs).
+     */
+    public String createToken(String id, String email) {
+        return codec.encode(id, email);
+    }
+
+    /**
+     * Link da página de descadastro (usado no corpo do e-mail).
+     */
+    public String pageUrl(String id, String email) {
+        return pageUrl + "?token=" + createToken(id, email);
+    }
+
+    /**
+     * Link do descadastro em um clique (cabeçalho List-Unsubscribe, RFC 8058).
+     */
+    public String oneClickUrl(String id, String email) {
+        return oneClickUrl + "?token=" + createToken(id, email);
+    }
+
+    /**
+     * Verifica a assinatura do token e retorna a inscrição que ele identifica.
+     *
+     * @param token O token recebido.
+     * @return O ID e o e-mail da inscrição.
+     * @throws IllegalArgumentException Se o token estiver malformado ou a assinatura não conferir.
+     */
+    public UnsubscribeToken verify(String token) {
+        List<String> fields = codec.decode(token, 2, INVALID_TOKEN);
+        return new UnsubscribeToken(fields.get(0), fields.get(1));
+    }
+
+    /**
+     * Conteúdo de um token de descadastro válido.
+     */
+    public static final class UnsubscribeToken {
+        private final String subscriptionId;
+        private final String email;
+
+        public UnsubscribeToken(String subscriptionId, String email) {
+            this.subscriptionId = subscriptionId;
+            this.email = email;
+        }
+
+        public String getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+    }
+}
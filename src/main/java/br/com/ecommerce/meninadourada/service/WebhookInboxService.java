@@ -0,0 +1,280 @@
+package br.com.ecommerce.meninadourada.service;
+
+import br.com.ecommerce.meninadourada.model.WebhookInboxEntry;
+import br.com.ecommerce.meninadourada.model.WebhookInboxStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caixa de entrada (inbox) durável para os webhooks do Mercado Pago.
+ * O endpoint só grava a notificação e responde 200; um pool limitado de workers
+ * processa as notificações de forma assíncrona, com novas tentativas com backoff
+ * e estado DEAD_LETTER quando as tentativas se esgotam.
+ * Notificações repetidas são deduplicadas por (topic, id) durante a janela de debounce e,
+ * após o processamento, as notificações relacionadas do mesmo pedido são coalescidas.
+ */
+@Service
+public class WebhookInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MercadoPagoService mercadoPagoService;
+
+    private ThreadPoolExecutor workers;
+
+    @Value("${webhook.inbox.workers:4}")
+    private int workerCount;
+
+    @Value("${webhook.inbox.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${webhook.inbox.debounce-ms:2000}")
+    private long debounceMs;
+
+    @Value("${webhook.inbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${webhook.inbox.lock-seconds:120}")
+    private long lockSeconds;
+
+    @Value("${webhook.inbox.base-backoff-seconds:5}")
+    private long baseBackoffSeconds;
+
+    @Value("${webhook.inbox.max-backoff-seconds:1800}")
+    private long maxBackoffSeconds;
+
+    @Autowired
+    public WebhookInboxService(MongoTemplate mongoTemplate, MercadoPagoService mercadoPagoService) {
+        this.mongoTemplate = mongoTemplate;
+        this.mercadoPagoService = mercadoPagoService;
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "webhook-inbox-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopWorkers() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Notificações em andamento voltam a ser processadas quando o lock expirar
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Grava a notificação na inbox com um único upsert e responde sem processá-la.
+     * Notificações repetidas com o mesmo (topic, id) que chegam enquanto a entrada ainda
+     * aguarda a janela de debounce são absorvidas por ela, em vez de gerar outra busca na API.
+     *
+     * @param topic O tópico da notificação (ex.: "payment", "merchant_order").
+     * @param resourceId O ID do recurso no Mercado Pago.
+     * @param payload O corpo bruto recebido.
+     * @return A entrada gravada (nova ou a que absorveu a notificação).
+     */
+    public WebhookInboxEntry receive(String topic, String resourceId, Map<String, Object> payload) {
+        LocalDateTime now = LocalDateTime.now();
+        String dedupKey = WebhookNotificationResult.keyOf(topic, resourceId);
+        Query pending = new Query(Criteria.where("dedupKey").is(dedupKey).and("status").is(WebhookInboxStatus.PENDING));
+        Update update = new Update()
+                .inc("notificationCount", 1)
+                .setOnInsert("_id", new ObjectId().toHexString())
+                .setOnInsert("topic", topic)
+                .setOnInsert("resourceId", resourceId)
+                .setOnInsert("payload", payload)
+                .setOnInsert("attempts", 0)
+                .setOnInsert("receivedAt", now)
+                .setOnInsert("nextAttemptAt", now.plus(Duration.ofMillis(debounceMs)));
+        WebhookInboxEntry entry;
+        try {
+            entry = mongoTemplate.findAndModify(pending, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), WebhookInboxEntry.class);
+        } catch (DuplicateKeyException e) {
+            // Upsert concorrente do mesmo (topic, id) inseriu primeiro (índice único parcial): agora a busca a encontra
+            entry = mongoTemplate.findAndModify(pending, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), WebhookInboxEntry.class);
+        }
+        if (entry.getNotificationCount() > 1) {
+            logger.info("Webhook {} repetido absorvido pela entrada {} ({} notificações).", dedupKey, entry.getId(), entry.getNotificationCount());
+        } else {
+            logger.info("Webhook gravado na inbox. ID: {}, topic={}, resourceId={}", entry.getId(), topic, resourceId);
+        }
+        return entry;
+    }
+
+    /**
+     * Varre a inbox em busca de notificações prontas (janela de debounce encerrada, novas
+     * tentativas ou locks expirados) enquanto houver capacidade no pool.
+     */
+    @Scheduled(fixedDelayString = "${webhook.inbox.poll-interval-ms:500}")
+    public void pollPendingEntries() {
+        while (workers.getQueue().remainingCapacity() > 0) {
+            WebhookInboxEntry entry = claimNextEntry();
+            if (entry == null) {
+                return;
+            }
+            if (!trySubmit(entry)) {
+                release(entry);
+                return;
+            }
+        }
+    }
+
+    private boolean trySubmit(WebhookInboxEntry entry) {
+        try {
+            workers.execute(() -> process(entry));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.debug("Pool de webhooks cheio; a notificação será processada no próximo ciclo.");
+            return false;
+        }
+    }
+
+    private void process(WebhookInboxEntry entry) {
+        LocalDateTime fetchStartedAt = LocalDateTime.now();
+        WebhookNotificationResult result;
+        try {
+            result = mercadoPagoService.handleWebhookNotification(entry.getResourceId(), entry.getTopic());
+        } catch (Exception e) {
+            scheduleRetry(entry, e);
+            return;
+        }
+        Update done = new Update()
+                .set("status", WebhookInboxStatus.DONE)
+                .set("processedAt", LocalDateTime.now())
+                .unset("lockedUntil");
+        if (result.getExternalReference() != null) {
+            done.set("externalReference", result.getExternalReference());
+        }
+        mongoTemplate.updateFirst(byId(entry.getId()), done, WebhookInboxEntry.class);
+        coalesceRelated(entry, result, fetchStartedAt);
+    }
+
+    /**
+     * Marca como concluídas as notificações pendentes do mesmo pedido que já estavam na inbox
+     * antes da busca na API (ex.: a merchant order de um pagamento), pois o estado aplicado já as cobre.
+     * Notificações recebidas depois da busca continuam pendentes, já que podem trazer um estado mais novo.
+     */
+    private void coalesceRelated(WebhookInboxEntry entry, WebhookNotificationResult result, LocalDateTime fetchStartedAt) {
+        if (result.getRelatedKeys().isEmpty()) {
+            return;
+        }
+        Query related = new Query(Criteria.where("dedupKey").in(result.getRelatedKeys())
+                .and("status").is(WebhookInboxStatus.PENDING)
+                .and("receivedAt").lte(fetchStartedAt));
+        Update coalesced = new Update()
+                .set("status", WebhookInboxStatus.DONE)
+                .set("coalescedInto", entry.getId())
+                .set("processedAt", LocalDateTime.now());
+        if (result.getExternalReference() != null) {
+            coalesced.set("externalReference", result.getExternalReference());
+        }
+        long count = mongoTemplate.updateMulti(related, coalesced, WebhookInboxEntry.class).getModifiedCount();
+        if (count > 0) {
+            logger.info("{} notificação(ões) do pedido {} coalescida(s) na entrada {}.", count, result.getExternalReference(), entry.getId());
+        }
+    }
+
+    private void scheduleRetry(WebhookInboxEntry entry, Exception e) {
+        int attempts = entry.getAttempts() + 1;
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("lastError", e.getMessage())
+                .unset("lockedUntil");
+        // Um id que não é numérico nunca será processado; não adianta tentar de novo
+        if (e instanceof NumberFormatException || attempts >= maxAttempts) {
+            update.set("status", WebhookInboxStatus.DEAD_LETTER);
+            logger.error("Webhook {} (topic={}, resourceId={}) movido para DEAD_LETTER após {} tentativas: {}",
+                    entry.getId(), entry.getTopic(), entry.getResourceId(), attempts, e.getMessage(), e);
+        } else {
+            long backoff = Math.min(maxBackoffSeconds, baseBackoffSeconds << Math.min(attempts - 1, 20));
+            update.set("status", WebhookInboxStatus.PENDING)
+                    .set("nextAttemptAt", LocalDateTime.now().plusSeconds(backoff));
+            logger.warn("Falha ao processar webhook {} (tentativa {}). Nova tentativa em {}s: {}",
+                    entry.getId(), attempts, backoff, e.getMessage());
+        }
+        updateBackToPending(entry, update);
+    }
+
+    private WebhookInboxEntry claimNextEntry() {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria ready = new Criteria().orOperator(
+                Criteria.where("status").is(WebhookInboxStatus.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(WebhookInboxStatus.PROCESSING).and("lockedUntil").lte(now));
+        Query query = new Query(ready).with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        return mongoTemplate.findAndModify(query, claimUpdate(), FindAndModifyOptions.options().returnNew(true), WebhookInboxEntry.class);
+    }
+
+    private Update claimUpdate() {
+        return new Update()
+                .set("status", WebhookInboxStatus.PROCESSING)
+                .set("lockedUntil", LocalDateTime.now().plusSeconds(lockSeconds));
+    }
+
+    private void release(WebhookInboxEntry entry) {
+        updateBackToPending(entry, new Update()
+                .set("status", WebhookInboxStatus.PENDING)
+                .unset("lockedUntil"));
+    }
+
+    /**
+     * Aplica um update que pode devolver a entrada a PENDING. Se outra notificação do mesmo
+     * (topic, id) chegou nesse meio tempo, ela já é a entrada pendente (índice único parcial) e vai
+     * buscar o estado atual na API: esta entrada é coalescida nela em vez de duplicar a busca.
+     */
+    private void updateBackToPending(WebhookInboxEntry entry, Update update) {
+        try {
+            mongoTemplate.updateFirst(byId(entry.getId()), update, WebhookInboxEntry.class);
+        } catch (DuplicateKeyException e) {
+            WebhookInboxEntry pending = mongoTemplate.findOne(new Query(Criteria.where("dedupKey").is(entry.getDedupKey())
+                    .and("status").is(WebhookInboxStatus.PENDING)), WebhookInboxEntry.class);
+            Update coalesced = new Update()
+                    .set("status", WebhookInboxStatus.DONE)
+                    .set("processedAt", LocalDateTime.now())
+                    .unset("lockedUntil");
+            if (pending != null) {
+                coalesced.set("coalescedInto", pending.getId());
+            }
+            mongoTemplate.updateFirst(byId(entry.getId()), coalesced, WebhookInboxEntry.class);
+            logger.info("Webhook {} coalescido na entrada pendente {} do mesmo recurso.",
+                    entry.getId(), pending != null ? pending.getId() : null);
+        }
+    }
+
+    private Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
+    }
+}
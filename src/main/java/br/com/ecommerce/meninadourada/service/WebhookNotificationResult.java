@@ -0,0 +1,42 @@
+package br.com.ecommerce.meninadourada.service;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Resultado do processamento de uma notificação do Mercado Pago.
+ * relatedKeys lista as outras notificações ("topic:id") cobertas pelo mesmo estado
+ * buscado na API (ex.: a merchant order de um pagamento), que podem ser coalescidas.
+ */
+public class WebhookNotificationResult {
+
+    private final String externalReference;
+    private final Set<String> relatedKeys;
+
+    public WebhookNotificationResult(String externalReference, Set<String> relatedKeys) {
+        this.externalReference = externalReference;
+        this.relatedKeys = relatedKeys;
+    }
+
+    public static WebhookNotificationResult ignored() {
+        return new WebhookNotificationResult(null, Collections.emptySet());
+    }
+
+    public String getExternalReference() {
+        return externalReference;
+    }
+
+    public Set<String> getRelatedKeys() {
+        return relatedKeys;
+    }
+
+    /**
+     * Monta a chave de deduplicação de uma notificação.
+     * @param topic O tópico (ex.: "payment").
+     * @param resourceId O ID do recurso no Mercado Pago.
+     * @return A chave no formato "topic:id".
+     */
+    public static String keyOf(String topic, Object resourceId) {
+        return topic + ":" + resourceId;
+    }
+}
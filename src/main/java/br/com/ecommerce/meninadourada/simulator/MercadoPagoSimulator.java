@@ -0,0 +1,257 @@
+package br.com.ecommerce.meninadourada.simulator;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Simulador em memória da API do Mercado Pago (profile "mp-simulator").
+ * Guarda preferências, pagamentos e merchant orders, envia as notificações de webhook para a
+ * notification_url da preferência e permite injetar latência e erros nas chamadas da API,
+ * para testar e medir o checkout sem depender do Mercado Pago real.
+ * Os recursos são devolvidos como mapas com os nomes de campo da API (snake_case).
+ */
+@Service
+@Profile("mp-simulator")
+public class MercadoPagoSimulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(MercadoPagoSimulator.class);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    private final Map<String, Map<String, Object>> preferences = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Object>> payments = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Object>> merchantOrders = new ConcurrentHashMap<>();
+    // preferenceId -> merchant order da preferência
+    private final Map<String, Long> merchantOrderByPreference = new ConcurrentHashMap<>();
+    private final AtomicLong paymentSequence = new AtomicLong(1_000_000_000L);
+    private final AtomicLong merchantOrderSequence = new AtomicLong(2_000_000_000L);
+
+    private final HttpClient webhookClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private ScheduledExecutorService scheduler;
+
+    @Value("${mp-simulator.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${mp-simulator.latency-jitter-ms:50}")
+    private long latencyJitterMs;
+
+    @Value("${mp-simulator.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${mp-simulator.webhook-delay-ms:200}")
+    private long webhookDelayMs;
+
+    // Status do pagamento criado automaticamente após cada preferência (vazio desativa)
+    @Value("${mp-simulator.auto-pay-status:}")
+    private String autoPayStatus;
+
+    @Value("${mp-simulator.auto-pay-delay-ms:1000}")
+    private long autoPayDelayMs;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "mp-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.warn("Simulador do Mercado Pago ativo: as chamadas à API NÃO vão para o Mercado Pago real.");
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Aplica a latência configurada e sorteia uma falha conforme a taxa de erro.
+     *
+     * @return true se a chamada deve falhar com HTTP 500.
+     */
+    public boolean simulateNetwork() {
+        long delay = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    public Map<String, Object> createPreference(Map<String, Object> request) {
+        String id = "SIM-" + UUID.randomUUID();
+        Map<String, Object> preference = new LinkedHashMap<>(request);
+        preference.put("id", id);
+        preference.put("init_point", "https://simulator.local/checkout?pref_id=" + id);
+        preference.put("sandbox_init_point", "https://simulator.local/checkout?pref_id=" + id);
+        preference.put("date_created", now());
+        preferences.put(id, preference);
+
+        if (autoPayStatus != null && !autoPayStatus.isBlank()) {
+            scheduler.schedule(() -> pay(id, autoPayStatus), autoPayDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return preference;
+    }
+
+    /**
+     * Simula o pagamento de uma preferência: cria o pagamento, atualiza a merchant order
+     * e agenda as notificações de webhook (payment e merchant_order).
+     *
+     * @param preferenceId O ID da preferência.
+     * @param status O status do pagamento (ex.: approved, rejected, in_process).
+     * @return O pagamento criado, ou vazio se a preferência não existir.
+     */
+    public Optional<Map<String, Object>> pay(String preferenceId, String status) {
+        Map<String, Object> preference = preferences.get(preferenceId);
+        if (preference == null) {
+            return Optional.empty();
+        }
+        String externalReference = (String) preference.get("external_reference");
+        Long merchantOrderId = merchantOrderByPreference.computeIfAbsent(preferenceId, key -> {
+            long id = merchantOrderSequence.incrementAndGet();
+            Map<String, Object> merchantOrder = new ConcurrentHashMap<>();
+            merchantOrder.put("id", id);
+            merchantOrder.put("preference_id", preferenceId);
+            merchantOrder.put("external_reference", externalReference);
+            merchantOrder.put("status", "opened");
+            merchantOrder.put("order_status", "payment_required");
+            merchantOrder.put("payments", new ArrayList<Map<String, Object>>());
+            merchantOrder.put("date_created", now());
+            merchantOrders.put(id, merchantOrder);
+            return id;
+        });
+
+        long paymentId = paymentSequence.incrementAndGet();
+        String now = now();
+        Map<String, Object> payment = new LinkedHashMap<>();
+        payment.put("id", paymentId);
+        payment.put("status", status);
+        payment.put("status_detail", "simulated");
+        payment.put("external_reference", externalReference);
+        payment.put("transaction_amount", totalAmount(preference));
+        payment.put("currency_id", "BRL");
+        payment.put("date_created", now);
+        payment.put("date_last_updated", now);
+        payment.put("order", Map.of("id", merchantOrderId, "type", "mercadopago"));
+        payments.put(paymentId, payment);
+
+        updateMerchantOrder(merchantOrderId, paymentId, status, payment.get("transaction_amount"));
+
+        String notificationUrl = (String) preference.get("notification_url");
+        if (notificationUrl != null) {
+            scheduler.schedule(() -> sendWebhook(notificationUrl, "payment", paymentId), webhookDelayMs, TimeUnit.MILLISECONDS);
+            scheduler.schedule(() -> sendWebhook(notificationUrl, "merchant_order", merchantOrderId), webhookDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return Optional.of(payment);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateMerchantOrder(Long merchantOrderId, long paymentId, String status, Object amount) {
+        merchantOrders.computeIfPresent(merchantOrderId, (id, merchantOrder) -> {
+            List<Map<String, Object>> moPayments = new ArrayList<>((List<Map<String, Object>>) merchantOrder.get("payments"));
+            moPayments.add(Map.of("id", paymentId, "status", status, "transaction_amount", amount));
+            merchantOrder.put("payments", moPayments);
+            if ("approved".equals(status)) {
+                merchantOrder.put("status", "closed");
+                merchantOrder.put("order_status", "paid");
+            }
+            merchantOrder.put("last_updated", now());
+            return merchantOrder;
+        });
+    }
+
+    public Optional<Map<String, Object>> getPayment(long id) {
+        return Optional.ofNullable(payments.get(id));
+    }
+
+    public Optional<Map<String, Object>> getMerchantOrder(long id) {
+        return Optional.ofNullable(merchantOrders.get(id)).map(LinkedHashMap::new);
+    }
+
+    /**
+     * Busca de pagamentos com os filtros usados pela aplicação: external_reference e
+     * intervalo de date_created (begin_date/end_date), em ordem crescente de criação.
+     */
+    public Map<String, Object> searchPayments(String externalReference, String beginDate, String endDate, int offset, int limit) {
+        OffsetDateTime begin = beginDate == null || beginDate.startsWith("NOW") ? null : OffsetDateTime.parse(beginDate, DATE_FORMAT);
+        OffsetDateTime end = endDate == null || endDate.startsWith("NOW") ? null : OffsetDateTime.parse(endDate, DATE_FORMAT);
+        List<Map<String, Object>> matches = payments.values().stream()
+                .filter(p -> externalReference == null || externalReference.equals(p.get("external_reference")))
+                .filter(p -> {
+                    OffsetDateTime created = OffsetDateTime.parse((String) p.get("date_created"), DATE_FORMAT);
+                    return (begin == null || !created.isBefore(begin)) && (end == null || !created.isAfter(end));
+                })
+                .sorted(Comparator.comparing(p -> (Long) p.get("id")))
+                .collect(Collectors.toList());
+        List<Map<String, Object>> page = matches.stream().skip(offset).limit(limit).collect(Collectors.toList());
+        return Map.of(
+                "paging", Map.of("total", matches.size(), "offset", offset, "limit", limit),
+                "results", page);
+    }
+
+    private void sendWebhook(String notificationUrl, String topic, long id) {
+        String separator = notificationUrl.contains("?") ? "&" : "?";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(notificationUrl + separator + "id=" + id + "&topic=" + topic))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"topic\":\"" + topic + "\",\"resource\":\"" + id + "\"}"))
+                .build();
+        webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        logger.warn("Simulador: falha ao enviar webhook {} {}: {}", topic, id, error.getMessage());
+                    } else if (response.statusCode() >= 300) {
+                        logger.warn("Simulador: webhook {} {} respondeu HTTP {}", topic, id, response.statusCode());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BigDecimal totalAmount(Map<String, Object> preference) {
+        Object items = preference.get("items");
+        if (!(items instanceof List<?> list)) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (Object item : list) {
+            Map<String, Object> map = (Map<String, Object>) item;
+            BigDecimal unitPrice = new BigDecimal(String.valueOf(map.getOrDefault("unit_price", "0")));
+            BigDecimal quantity = new BigDecimal(String.valueOf(map.getOrDefault("quantity", "1")));
+            total = total.add(unitPrice.multiply(quantity));
+        }
+        return total;
+    }
+
+    private static String now() {
+        return DATE_FORMAT.format(OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.ecommerce.meninadourada.simulator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Endpoints do simulador do Mercado Pago (profile "mp-simulator").
+ * Os caminhos abaixo de /mp-simulator espelham os da API usados pelo SDK; o SimulatorRoutingHttpClient
+ * redireciona as chamadas para cá. O endpoint /_simulate/preferences/{id}/pay simula o pagamento
+ * feito pelo comprador no checkout.
+ */
+@RestController
+@Profile("mp-simulator")
+@RequestMapping("/mp-simulator")
+public class MercadoPagoSimulatorController {
+
+    private final MercadoPagoSimulator simulator;
+
+    @Autowired
+    public MercadoPagoSimulatorController(MercadoPagoSimulator simulator) {
+        this.simulator = simulator;
+    }
+
+    @PostMapping("/checkout/preferences")
+    public ResponseEntity<?> createPreference(@RequestBody Map<String, Object> request) {
+        return api(() -> ResponseEntity.status(HttpStatus.CREATED).body(simulator.createPreference(request)));
+    }
+
+    @GetMapping("/v1/payments/search")
+    public ResponseEntity<?> searchPayments(
+            @RequestParam(value = "external_reference", required = false) String externalReference,
+            @RequestParam(value = "begin_date", required = false) String beginDate,
+            @RequestParam(value = "end_date", required = false) String endDate,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "30") int limit) {
+        return api(() -> ResponseEntity.ok(simulator.searchPayments(externalReference, beginDate, endDate, offset, limit)));
+    }
+
+    @GetMapping("/v1/payments/{id}")
+    public ResponseEntity<?> getPayment(@PathVariable long id) {
+        return api(() -> simulator.getPayment(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> notFound("Payment not found")));
+    }
+
+    @GetMapping("/merchant_orders/{id}")
+    public ResponseEntity<?> getMerchantOrder(@PathVariable long id) {
+        return api(() -> simulator.getMerchantOrder(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> notFound("Merchant order not found")));
+    }
+
+    /**
+     * Simula o pagamento de uma preferência (sem latência nem erros injetados).
+     */
+    @PostMapping("/_simulate/preferences/{preferenceId}/pay")
+    public ResponseEntity<?> pay(@PathVariable String preferenceId,
+                                 @RequestParam(value = "status", defaultValue = "approved") String status) {
+        return simulator.pay(preferenceId, status)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> notFound("Preference not found"));
+    }
+
+    private ResponseEntity<?> api(Supplier<ResponseEntity<?>> handler) {
+        if (simulator.simulateNetwork()) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "simulated error", "error", "internal_error", "status", 500));
+        }
+        return handler.get();
+    }
+
+    private static ResponseEntity<?> notFound(String message) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("message", message, "error", "not_found", "status", 404));
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.ecommerce.meninadourada.simulator;
+
+import com.mercadopago.MercadoPagoConfig;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.net.MPHttpClient;
+import com.mercadopago.net.MPRequest;
+import com.mercadopago.net.MPResponse;
+
+/**
+ * MPHttpClient que troca a URL base da API do Mercado Pago pela do simulador
+ * e delega o envio ao cliente HTTP do SDK.
+ */
+public class SimulatorRoutingHttpClient implements MPHttpClient {
+
+    private final MPHttpClient delegate;
+    private final String simulatorBaseUrl;
+
+    public SimulatorRoutingHttpClient(MPHttpClient delegate, String simulatorBaseUrl) {
+        this.delegate = delegate;
+        this.simulatorBaseUrl = simulatorBaseUrl.endsWith("/")
+                ? simulatorBaseUrl.substring(0, simulatorBaseUrl.length() - 1)
+                : simulatorBaseUrl;
+    }
+
+    @Override
+    public MPResponse send(MPRequest request) throws MPException, MPApiException {
+        String uri = request.getUri();
+        if (uri != null && uri.startsWith(MercadoPagoConfig.BASE_URL)) {
+            uri = simulatorBaseUrl + uri.substring(MercadoPagoConfig.BASE_URL.length());
+        }
+        MPRequest routed = MPRequest.builder()
+                .uri(uri)
+                .method(request.getMethod())
+                .headers(request.getHeaders())
+                .payload(request.getPayload())
+                .queryParams(request.getQueryParams())
+                .accessToken(request.getAccessToken())
+                .connectionTimeout(request.getConnectionTimeout())
+                .connectionRequestTimeout(request.getConnectionRequestTimeout())
+                .socketTimeout(request.getSocketTimeout())
+                .build();
+        return delegate.send(routed);
+    }
+}
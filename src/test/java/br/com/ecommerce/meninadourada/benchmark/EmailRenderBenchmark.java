@@ -0,0 +1,163 @@
+package br.com.ecommerce.meninadourada.benchmark;
+
+import br.com.ecommerce.meninadourada.model.Order;
+import br.com.ecommerce.meninadourada.model.OrderItem;
+import br.com.ecommerce.meninadourada.model.OrderStatus;
+import br.com.ecommerce.meninadourada.model.ShippingAddress;
+import br.com.ecommerce.meninadourada.service.EmailService;
+import br.com.ecommerce.meninadourada.service.EmailTemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH (não é um teste JUnit; execute o main) da montagem dos e-mails de pedido:
+ * templates compilados (texto + HTML) contra a montagem anterior com StringBuilder (só texto),
+ * copiada abaixo como referência. Use -prof gc para comparar também a alocação por e-mail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailRenderBenchmark {
+
+    @Param({"3", "20"})
+    private int itemCount;
+
+    private Order order;
+    private EmailService emailService;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(EmailRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        EmailTemplateEngine engine = new EmailTemplateEngine();
+        engine.loadTemplates();
+        // Só a renderização é medida: a fila não é usada
+        emailService = new EmailService(null, engine);
+
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItem("product-" + i, "Colar Dourado <Coleção " + i + ">", "variation-" + i, 1 + i % 3,
+                    new BigDecimal("129.90")));
+        }
+        order = new Order("665f1c2e8a1b2c3d4e5f6a7b", "user-1", LocalDateTime.now(), items, new BigDecimal("389.70"),
+                OrderStatus.PAID, "123456789", "approved", "7f6e5d4c-3b2a-1908-7654-3210fedcba98",
+                "Maria da Silva", "maria@example.com", "11987654321", "12345678909",
+                new ShippingAddress("01001000", "Praça da Sé", "100", "Apto 12", "Sé", "São Paulo", "SP", "Brasil"));
+    }
+
+    @Benchmark
+    public EmailTemplateEngine.RenderedEmail templateOrderConfirmation() {
+        return emailService.renderOrderConfirmation(order);
+    }
+
+    @Benchmark
+    public EmailTemplateEngine.RenderedEmail templateNewSaleNotification() {
+        return emailService.renderNewSaleNotification(order);
+    }
+
+    @Benchmark
+    public String legacyOrderConfirmation() {
+        return legacyOrderConfirmationText(order);
+    }
+
+    @Benchmark
+    public String legacyNewSaleNotification() {
+        return legacyNewSaleNotificationText(order);
+    }
+
+    // Montagem anterior do e-mail de confirmação (StringBuilder), mantida como referência
+    private static String legacyOrderConfirmationText(Order order) {
+        StringBuilder text = new StringBuilder();
+        text.append("Olá ").append(order.getCustomerName()).append(",\n\n");
+        text.append("Parabéns pela sua compra na Menina Dourada! Seu pedido foi aprovado e está sendo processado.\n\n");
+        text.append("Detalhes do Pedido:\n");
+        text.append("Número do Pedido: #").append(order.getId()).append("\n");
+        text.append("Data do Pedido: ").append(order.getOrderDate()).append("\n");
+        text.append("Valor Total: R$ ").append(order.getTotalAmount()).append("\n\n");
+
+        text.append("Itens do Pedido:\n");
+        for (OrderItem item : order.getItems()) {
+            text.append("- ").append(item.getQuantity()).append("x ")
+                    .append(item.getProductName()).append(" (Variação: ").append(item.getVariationId())
+                    .append(") - R$ ").append(item.getUnitPrice()).append(" cada\n");
+        }
+        text.append("\n");
+
+        text.append("Endereço de Entrega:\n");
+        text.append(order.getCustomerName()).append("\n");
+        appendLegacyAddress(order, text);
+
+        text.append("Agradecemos a sua preferência!\n");
+        text.append("Equipe Menina Dourada.");
+        return text.toString();
+    }
+
+    // Montagem anterior do e-mail da loja (StringBuilder), mantida como referência
+    private static String legacyNewSaleNotificationText(Order order) {
+        StringBuilder text = new StringBuilder();
+        text.append("Uma nova venda foi aprovada na loja Menina Dourada!\n\n");
+        text.append("Detalhes do Pedido:\n");
+        text.append("Número do Pedido: #").append(order.getId()).append("\n");
+        text.append("Data do Pedido: ").append(order.getOrderDate()).append("\n");
+        text.append("Valor Total: R$ ").append(order.getTotalAmount()).append("\n");
+        text.append("Status de Pagamento: ").append(order.getPaymentStatus()).append("\n");
+        text.append("Referência Externa (MP): ").append(order.getExternalReference()).append("\n\n");
+
+        text.append("Cliente:\n");
+        text.append("Nome: ").append(order.getCustomerName()).append("\n");
+        text.append("Email: ").append(order.getCustomerEmail()).append("\n");
+        text.append("Telefone: ").append(order.getCustomerPhone()).append("\n");
+        text.append("CPF: ").append(order.getCustomerCpf()).append("\n\n");
+
+        text.append("Itens da Venda:\n");
+        for (OrderItem item : order.getItems()) {
+            text.append("- ").append(item.getQuantity()).append("x ")
+                    .append(item.getProductName() != null ? item.getProductName() : "Produto")
+                    .append(item.getProductName()).append(" (Variação: ").append(item.getProductName())
+                    .append(") - R$ ").append(item.getUnitPrice()).append(" cada\n");
+        }
+        text.append("\n");
+
+        text.append("Endereço de Entrega:\n");
+        appendLegacyAddress(order, text);
+        return text.toString();
+    }
+
+    private static void appendLegacyAddress(Order order, StringBuilder text) {
+        text.append(order.getShippingAddress().getStreetName()).append(", ")
+                .append(order.getShippingAddress().getStreetNumber());
+        if (order.getShippingAddress().getComplement() != null && !order.getShippingAddress().getComplement().isEmpty()) {
+            text.append(" - ").append(order.getShippingAddress().getComplement());
+        }
+        text.append("\n");
+        text.append(order.getShippingAddress().getNeighborhood()).append(", ")
+                .append(order.getShippingAddress().getCityName()).append(" - ")
+                .append(order.getShippingAddress().getStateName()).append("\n");
+        text.append("CEP: ").append(order.getShippingAddress().getZipCode()).append("\n");
+        text.append("País: ").append(order.getShippingAddress().getCountryName()).append("\n\n");
+    }
+}
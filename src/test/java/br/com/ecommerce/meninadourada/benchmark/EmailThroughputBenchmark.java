@@ -0,0 +1,280 @@
+package br.com.ecommerce.meninadourada.benchmark;
+
+import br.com.ecommerce.meninadourada.model.Order;
+import br.com.ecommerce.meninadourada.model.OrderItem;
+import br.com.ecommerce.meninadourada.model.OrderStatus;
+import br.com.ecommerce.meninadourada.model.ShippingAddress;
+import br.com.ecommerce.meninadourada.service.EmailService;
+import br.com.ecommerce.meninadourada.service.EmailTemplateEngine;
+import br.com.ecommerce.meninadourada.service.SmtpBatchSender;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark de envio de e-mails contra um servidor SMTP embarcado (GreenMail), sem tocar no Gmail
+ * (não é um teste JUnit; execute o main). Mede mensagens/s e percentis de latência por mensagem
+ * (do início do envio do lote até o aceite pelo servidor) para:
+ * - order-confirmation/per-connection: um JavaMailSender.send por mensagem (uma conexão por e-mail);
+ * - order-confirmation/batched: SmtpBatchSender com conexões reaproveitadas, por tamanho de lote e workers;
+ * - campaign: mensagem da newsletter renderizada uma vez e enviada em lotes por um único executor.
+ * Os e-mails são renderizados pelos templates reais. O total recebido pelo servidor é conferido.
+ *
+ * Argumentos (todos opcionais):
+ * --messages=2000  --workers=1,2,4  --batch-sizes=1,10,50  --warmup-messages=200
+ * --min-msgs-per-second=0  (se maior que zero, termina com código 1 quando algum cenário em lote ficar abaixo)
+ */
+public class EmailThroughputBenchmark {
+
+    private final GreenMail smtpServer;
+    private final JavaMailSenderImpl mailSender;
+    private final EmailService emailService;
+    private final EmailTemplateEngine templateEngine;
+    private final Order order;
+    // Só monta as mensagens (createMessage); cada cenário usa o seu próprio sender
+    private final SmtpBatchSender messageBuilder;
+    private final List<String> report = new ArrayList<>();
+
+    EmailThroughputBenchmark() throws Exception {
+        smtpServer = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        smtpServer.start();
+        smtpServer.setUser("loja@example.com", "loja@example.com", "secret");
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.getSmtp().getPort());
+        mailSender.setUsername("loja@example.com");
+        mailSender.setPassword("secret");
+        Properties properties = new Properties();
+        properties.put("mail.smtp.auth", "true");
+        mailSender.setJavaMailProperties(properties);
+
+        templateEngine = new EmailTemplateEngine();
+        templateEngine.loadTemplates();
+        // Só a renderização do EmailService é usada: a fila (Mongo) fica de fora
+        emailService = new EmailService(null, templateEngine);
+        order = sampleOrder();
+        messageBuilder = new SmtpBatchSender(mailSender);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int messages = Integer.parseInt(options.getOrDefault("messages", "2000"));
+        int warmupMessages = Integer.parseInt(options.getOrDefault("warmup-messages", "200"));
+        List<Integer> workerCounts = parseInts(options.getOrDefault("workers", "1,2,4"));
+        List<Integer> batchSizes = parseInts(options.getOrDefault("batch-sizes", "1,10,50"));
+        double minMessagesPerSecond = Double.parseDouble(options.getOrDefault("min-msgs-per-second", "0"));
+
+        EmailThroughputBenchmark benchmark = new EmailThroughputBenchmark();
+        boolean belowThreshold = false;
+        try {
+            // Aquecimento (JIT, templates, conexões)
+            benchmark.runBatched("warmup", warmupMessages, 1, 10, benchmark::orderConfirmation);
+            benchmark.report.clear();
+
+            for (int workers : workerCounts) {
+                benchmark.runPerConnection(messages, workers);
+            }
+            for (int workers : workerCounts) {
+                for (int batchSize : batchSizes) {
+                    double rate = benchmark.runBatched("order-confirmation/batched", messages, workers, batchSize, benchmark::orderConfirmation);
+                    belowThreshold |= minMessagesPerSecond > 0 && rate < minMessagesPerSecond;
+                }
+            }
+            MimeMessageFactory campaign = benchmark.campaignMessages();
+            for (int batchSize : batchSizes) {
+                double rate = benchmark.runBatched("campaign", messages, 1, batchSize, campaign);
+                belowThreshold |= minMessagesPerSecond > 0 && rate < minMessagesPerSecond;
+            }
+        } finally {
+            benchmark.smtpServer.stop();
+        }
+
+        System.out.printf("%n%-32s %7s %6s %8s %10s %8s %8s %8s %8s%n",
+                "cenário", "workers", "lote", "msgs", "msgs/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        benchmark.report.forEach(System.out::println);
+        if (belowThreshold) {
+            System.out.printf("%nFALHA: algum cenário em lote ficou abaixo de %.1f msgs/s.%n", minMessagesPerSecond);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Comportamento anterior ao envio em lote: um send (nova conexão SMTP) por mensagem.
+     */
+    void runPerConnection(int messages, int workers) throws Exception {
+        smtpServer.purgeEmailFromAllMailboxes();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long startedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            futures.add(pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < messages) {
+                    MimeMessage message = orderConfirmation(i);
+                    long sendStart = System.nanoTime();
+                    mailSender.send(message);
+                    latencies.add(System.nanoTime() - sendStart);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        pool.shutdown();
+        record("order-confirmation/per-connection", workers, 1, messages, elapsed, latencies);
+    }
+
+    /**
+     * Envio em lotes pelo SmtpBatchSender, com conexões reaproveitadas entre os lotes.
+     *
+     * @return A vazão medida (mensagens/s).
+     */
+    double runBatched(String scenario, int messages, int workers, int batchSize, MimeMessageFactory factory) throws Exception {
+        smtpServer.purgeEmailFromAllMailboxes();
+        SmtpBatchSender batchSender = new SmtpBatchSender(mailSender);
+        ReflectionTestUtils.setField(batchSender, "idleTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(batchSender, "maxMessagesPerConnection", 1_000);
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong failures = new AtomicLong();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long startedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            futures.add(pool.submit(() -> {
+                while (true) {
+                    int first = next.getAndAdd(batchSize);
+                    if (first >= messages) {
+                        return null;
+                    }
+                    List<MimeMessage> batch = new ArrayList<>(batchSize);
+                    for (int i = first; i < Math.min(first + batchSize, messages); i++) {
+                        batch.add(factory.create(i));
+                    }
+                    long sendStart = System.nanoTime();
+                    List<Exception> results = batchSender.send(batch);
+                    long sendEnd = System.nanoTime();
+                    for (Exception result : results) {
+                        if (result != null) {
+                            failures.incrementAndGet();
+                        }
+                        // Cada mensagem do lote é aceita até o fim do envio do lote
+                        latencies.add(sendEnd - sendStart);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        pool.shutdown();
+        ReflectionTestUtils.invokeMethod(batchSender, "closeAll");
+        if (failures.get() > 0) {
+            System.out.printf("%s: %d falha(s) de envio%n", scenario, failures.get());
+        }
+        return record(scenario, workers, batchSize, messages, elapsed, latencies);
+    }
+
+    private double record(String scenario, int workers, int batchSize, int messages, long elapsedNanos, ConcurrentLinkedQueue<Long> latencies)
+            throws InterruptedException {
+        // Confere que o servidor recebeu tudo (a entrega na caixa é assíncrona no GreenMail)
+        if (!smtpServer.waitForIncomingEmail(10_000, messages)) {
+            System.out.printf("%s: o servidor recebeu %d de %d mensagens%n", scenario, smtpServer.getReceivedMessages().length, messages);
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double seconds = elapsedNanos / 1e9;
+        double rate = messages / seconds;
+        report.add(String.format("%-32s %7d %6d %8d %10.1f %8.2f %8.2f %8.2f %8.2f",
+                scenario, workers, batchSize, messages, rate,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0)));
+        System.out.printf("%s workers=%d lote=%d: %.1f msgs/s%n", scenario, workers, batchSize, rate);
+        return rate;
+    }
+
+    private MimeMessage orderConfirmation(int index) throws Exception {
+        EmailTemplateEngine.RenderedEmail email = emailService.renderOrderConfirmation(order);
+        return messageBuilder.createMessage("loja@example.com", "cliente" + index + "@example.com",
+                email.getSubject(), email.getText(), email.getHtml());
+    }
+
+    private MimeMessageFactory campaignMessages() {
+        Map<String, String> variables = new LinkedHashMap<>();
+        variables.put("subject", "Novidades da semana");
+        variables.put("title", "Nova coleção dourada");
+        variables.put("body", "Conheça as peças da nova coleção, com frete grátis nesta semana.");
+        variables.put("ctaText", "Ver coleção");
+        variables.put("ctaUrl", "https://meninadourada.shop/colecao");
+        // Renderizada uma vez, como no NewsletterCampaignService
+        EmailTemplateEngine.RenderedEmail email = templateEngine.render("newsletter", variables);
+        return index -> messageBuilder.createMessage("loja@example.com", "inscrito" + index + "@example.com",
+                email.getSubject(), email.getText(), email.getHtml());
+    }
+
+    @FunctionalInterface
+    interface MimeMessageFactory {
+        MimeMessage create(int index) throws Exception;
+    }
+
+    private static Order sampleOrder() {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(new OrderItem("product-" + i, "Colar Dourado " + i, "variation-" + i, 1, new BigDecimal("129.90")));
+        }
+        return new Order("665f1c2e8a1b2c3d4e5f6a7b", "user-1", LocalDateTime.now(), items, new BigDecimal("389.70"),
+                OrderStatus.PAID, "123456789", "approved", "7f6e5d4c-3b2a-1908-7654-3210fedcba98",
+                "Maria da Silva", "maria@example.com", "11987654321", "12345678909",
+                new ShippingAddress("01001000", "Praça da Sé", "100", "Apto 12", "Sé", "São Paulo", "SP", "Brasil"));
+    }
+
+    private static double percentile(List<Long> sortedNanos, double quantile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, Math.min(index, sortedNanos.size() - 1))) / 1e6;
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add(Integer.parseInt(value.trim()));
+        }
+        return result;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
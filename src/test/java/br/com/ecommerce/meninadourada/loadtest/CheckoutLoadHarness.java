@@ -0,0 +1,252 @@
+package br.com.ecommerce.meninadourada.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Harness de carga do checkout (não é um teste JUnit; execute o main).
+ * Dispara os fluxos create-preference, webhook e order-update contra a aplicação a uma taxa
+ * alvo (modelo aberto: as requisições saem no ritmo configurado, independente das respostas)
+ * e imprime throughput e percentis de latência por fluxo.
+ * Deve ser usado com a aplicação rodando no profile "mp-simulator", que substitui o Mercado Pago.
+ *
+ * Argumentos (todos opcionais):
+ * --base-url=http://localhost:9090  --rps=50  --duration-seconds=60  --max-in-flight=500
+ * --mix=create-preference:2,webhook:1,order-update:1
+ * --product-id=... --variation-id=...  (produto do catálogo usado no carrinho; os preços são do servidor)
+ */
+public class CheckoutLoadHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(16))
+            .build();
+    private final String baseUrl;
+    private final int maxInFlight;
+    private final List<String> schedule;
+    private final String productId;
+    private final String variationId;
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latenciesMicros = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Preferências criadas durante o teste, usadas pelos fluxos de webhook e order-update
+    private final List<String> preferenceIds = new CopyOnWriteArrayList<>();
+
+    CheckoutLoadHarness(String baseUrl, int maxInFlight, Map<String, Integer> mix, String productId, String variationId) {
+        this.baseUrl = baseUrl;
+        this.productId = productId;
+        this.variationId = variationId;
+        this.maxInFlight = maxInFlight;
+        this.schedule = new ArrayList<>();
+        mix.forEach((flow, weight) -> {
+            latenciesMicros.put(flow, new ConcurrentLinkedQueue<>());
+            errors.put(flow, new AtomicLong());
+            for (int i = 0; i < weight; i++) {
+                schedule.add(flow);
+            }
+        });
+        Collections.shuffle(schedule);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:9090");
+        double rps = Double.parseDouble(options.getOrDefault("rps", "50"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration-seconds", "60"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "500"));
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", "create-preference:2,webhook:1,order-update:1"));
+
+        CheckoutLoadHarness harness = new CheckoutLoadHarness(baseUrl, maxInFlight, mix,
+                options.getOrDefault("product-id", "load-product"), options.getOrDefault("variation-id", "load-variation"));
+        harness.run(rps, durationSeconds);
+    }
+
+    void run(double rps, long durationSeconds) throws InterruptedException {
+        System.out.printf("Carga: %s a %.1f req/s por %ds, mix=%s%n", baseUrl, rps, durationSeconds, schedule);
+        // Algumas preferências iniciais para os fluxos que dependem delas
+        for (int i = 0; i < 5; i++) {
+            createPreference().join();
+        }
+
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        AtomicLong tick = new AtomicLong();
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+        long startedAt = System.nanoTime();
+        ticker.scheduleAtFixedRate(() -> {
+            String flow = schedule.get((int) (tick.getAndIncrement() % schedule.size()));
+            if (inFlight.get() >= maxInFlight) {
+                dropped.incrementAndGet();
+                return;
+            }
+            fire(flow);
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        ticker.awaitTermination(durationSeconds, TimeUnit.SECONDS);
+        ticker.shutdownNow();
+        // Aguarda as requisições em andamento (até 30s)
+        long drainDeadline = System.currentTimeMillis() + 30_000;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        report(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) / 1000.0);
+        System.exit(0);
+    }
+
+    private void fire(String flow) {
+        CompletableFuture<?> request = switch (flow) {
+            case "create-preference" -> createPreference();
+            case "webhook" -> webhook();
+            case "order-update" -> orderUpdate();
+            default -> throw new IllegalArgumentException("Fluxo desconhecido: " + flow);
+        };
+        request.exceptionally(e -> null);
+    }
+
+    private CompletableFuture<HttpResponse<String>> createPreference() {
+        String body = """
+                {"userId":"load-%1$s","totalAmount":99.90,"payerEmail":"load-%1$s@example.com",
+                 "customerName":"Carga Teste","customerPhone":"11999999999","customerCpf":"12345678909",
+                 "shippingAddress":{"zipCode":"01001000","streetName":"Praça da Sé","streetNumber":"1",
+                   "cityName":"São Paulo","stateName":"SP","countryName":"Brasil"},
+                 "items":[{"productId":"%2$s","productName":"Produto","variationId":"%3$s",
+                   "quantity":1,"unitPrice":99.90}]}
+                """.formatted(UUID.randomUUID(), productId, variationId);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/payments/create-preference"))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return send("create-preference", request).thenApply(response -> {
+            if (response.statusCode() == 200) {
+                try {
+                    JsonNode json = MAPPER.readTree(response.body());
+                    preferenceIds.add(json.path("preferenceId").asText(json.path("id").asText()));
+                } catch (Exception ignored) {
+                    // A latência já foi registrada; só não reutilizamos esta preferência
+                }
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Paga uma preferência no simulador (que também envia seus próprios webhooks)
+     * e mede a confirmação do webhook do pagamento pela aplicação.
+     */
+    private CompletableFuture<HttpResponse<String>> webhook() {
+        String preferenceId = randomPreference();
+        HttpRequest pay = HttpRequest.newBuilder(URI.create(baseUrl + "/mp-simulator/_simulate/preferences/" + preferenceId + "/pay?status=approved"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        inFlight.incrementAndGet();
+        return httpClient.sendAsync(pay, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((r, e) -> inFlight.decrementAndGet())
+                .thenCompose(response -> {
+                    String paymentId;
+                    try {
+                        paymentId = MAPPER.readTree(response.body()).path("id").asText();
+                    } catch (Exception e) {
+                        paymentId = String.valueOf(ThreadLocalRandom.current().nextLong(1_000_000_000L, 2_000_000_000L));
+                    }
+                    HttpRequest webhook = HttpRequest.newBuilder(URI.create(baseUrl + "/api/payments/webhook/mercadopago?id=" + paymentId + "&topic=payment"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"type\":\"payment\",\"data\":{\"id\":\"" + paymentId + "\"}}"))
+                            .build();
+                    return send("webhook", webhook);
+                });
+    }
+
+    private CompletableFuture<HttpResponse<String>> orderUpdate() {
+        String body = "{\"preferenceId\":\"" + randomPreference() + "\",\"paymentId\":\""
+                + ThreadLocalRandom.current().nextLong(1_000_000_000L, 2_000_000_000L) + "\",\"status\":\"approved\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/payments/update"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return send("order-update", request);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(String flow, HttpRequest request) {
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    latenciesMicros.get(flow).add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    if (error != null || response.statusCode() >= 500) {
+                        errors.get(flow).incrementAndGet();
+                    }
+                });
+    }
+
+    private String randomPreference() {
+        return preferenceIds.isEmpty() ? "unknown" : preferenceIds.get(ThreadLocalRandom.current().nextInt(preferenceIds.size()));
+    }
+
+    private void report(double elapsedSeconds) {
+        System.out.printf("%nDuração: %.1fs, descartadas (limite em andamento): %d%n", elapsedSeconds, dropped.get());
+        System.out.printf("%-18s %8s %8s %9s %8s %8s %8s %8s %8s%n",
+                "fluxo", "total", "erros", "req/s", "p50 ms", "p90 ms", "p95 ms", "p99 ms", "max ms");
+        latenciesMicros.forEach((flow, queue) -> {
+            List<Long> sorted = new ArrayList<>(queue);
+            Collections.sort(sorted);
+            System.out.printf("%-18s %8d %8d %9.1f %8.1f %8.1f %8.1f %8.1f %8.1f%n",
+                    flow, sorted.size(), errors.get(flow).get(), sorted.size() / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), percentile(sorted, 1.0));
+        });
+    }
+
+    private static double percentile(List<Long> sortedMicros, double quantile) {
+        if (sortedMicros.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sortedMicros.size()) - 1;
+        return sortedMicros.get(Math.max(0, Math.min(index, sortedMicros.size() - 1))) / 1000.0;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            weights.put(pair[0], pair.length > 1 ? Integer.parseInt(pair[1]) : 1);
+        }
+        return weights;
+    }
+}